@@ -1,6 +1,10 @@
 package showroom.gui;
 
+import showroom.index.FacetIndex.PriceBucket;
 import showroom.model.*;
+import showroom.query.FacetedResult;
+import showroom.query.InventoryQuery;
+import showroom.query.QuerySyntaxException;
 import showroom.service.*;
 
 import javax.swing.*;
@@ -12,6 +16,8 @@ import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
@@ -37,12 +43,28 @@ public class ShowroomGUI extends JFrame {
     private static final Color ACCENT_COLOR = new Color(255, 193, 7); // Amber/Gold Accent
     private static final Font BUTTON_FONT = new Font("SansSerif", Font.BOLD, 16);
     private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 32);
+    private static final int FILTER_PAGE_SIZE = 500; // Rows per page on the inventory screen
 
     public ShowroomGUI() {
-        service = new InventoryService();
+        try {
+            service = new InventoryService();
+        } catch (IllegalStateException e) {
+            // The configured storage backend cannot be used; say so instead of starting on other data
+            System.err.println("FATAL ERROR: " + e.getMessage());
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Storage Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+            throw e;
+        }
         setTitle("Car Showroom Inventory & Sales Management");
         setSize(1200, 800);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        // Checkpoint inventory and close persistence files before the JVM exits
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent evt) {
+                service.shutdown();
+            }
+        });
 
         mainContainer = new JPanel(cardLayout);
         add(mainContainer);
@@ -786,6 +808,10 @@ public class ShowroomGUI extends JFrame {
 
         JTextField searchField = new JTextField("Search Brand or Model...", 15);
         styleSearchField(searchField, "Search Brand or Model...");
+        searchField.setToolTipText("<html>Plain text searches brand and model. Queries combine terms, e.g.<br>"
+                + "<tt>brand:BMW price&lt;3e7 qty&gt;=2 model~\"X\"</tt><br>"
+                + "Fields: brand, model (: equals, ~ contains, != not; only in that field), price, qty (&lt; &lt;= &gt; &gt;= :, ranges like price:10L..1Cr)<br>"
+                + "Combine with OR, NOT or -term, and parentheses</html>");
 
         JLabel priceLabel = new JLabel("Price Range (Rs):");
         priceLabel.setForeground(TEXT_COLOR); // Manual Style
@@ -800,8 +826,29 @@ public class ShowroomGUI extends JFrame {
         inStockCheck.setForeground(TEXT_COLOR); // Manual Style
         inStockCheck.setFont(new Font("SansSerif", Font.PLAIN, 14));
 
+        JCheckBox fuzzyCheck = new JCheckBox("Typo Tolerant");
+        fuzzyCheck.setBackground(PRIMARY_BG.darker()); // Manual Style
+        fuzzyCheck.setForeground(TEXT_COLOR); // Manual Style
+        fuzzyCheck.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        fuzzyCheck.setToolTipText("Also match misspelled brand or model names, closest first");
+
+        // Facet combos; their labels carry the number of matching cars and are refreshed on every search
+        JComboBox<String> brandFacetCombo = new JComboBox<>(new String[]{"All Brands"});
+        List<String> brandFacetValues = new ArrayList<>(); // Brand behind each combo item after "All Brands"
+        JComboBox<String> priceFacetCombo = new JComboBox<>(new String[]{"All Prices"});
+        for (PriceBucket bucket : PriceBucket.values()) {
+            priceFacetCombo.addItem(bucket.getLabel());
+        }
+
         JButton searchBtn = createStyledButton("Apply Filters"); // Manual Style (RED, Black Text)
 
+        // Paging: the table holds one page of the result at a time
+        JButton prevPageBtn = createStyledButton("< Prev");
+        JButton nextPageBtn = createStyledButton("Next >");
+        JLabel pageLabel = new JLabel();
+        pageLabel.setForeground(TEXT_COLOR); // Manual Style
+        int[] pageOffset = {0};
+
         // --- FIX: Reset Button with BLACK text ---
         JButton resetBtn = createStyledButton("Reset"); // Manual Style (RED base)
         resetBtn.setBackground(new Color(200, 200, 200)); // Override for gray color
@@ -812,15 +859,19 @@ public class ShowroomGUI extends JFrame {
         filterBar.add(priceLabel);
         filterBar.add(minPriceField);
         filterBar.add(maxPriceField);
+        filterBar.add(brandFacetCombo);
+        filterBar.add(priceFacetCombo);
         filterBar.add(inStockCheck);
+        filterBar.add(fuzzyCheck);
         filterBar.add(searchBtn);
         filterBar.add(resetBtn);
+        filterBar.add(prevPageBtn);
+        filterBar.add(pageLabel);
+        filterBar.add(nextPageBtn);
 
         panel.add(filterBar, BorderLayout.SOUTH);
 
         Runnable updateTable = () -> {
-            tableModel.setRowCount(0);
-
             String query = searchField.getText().equals("Search Brand or Model...") ? "" : searchField.getText();
 
             double minPrice = 0;
@@ -841,9 +892,53 @@ public class ShowroomGUI extends JFrame {
 
             boolean inStock = inStockCheck.isSelected();
 
-            List<CarModel> filteredModels = service.filterInventory(query, minPrice, maxPrice, inStock);
+            int brandChoice = brandFacetCombo.getSelectedIndex();
+            String selectedBrand = brandChoice > 0 ? brandFacetValues.get(brandChoice - 1) : null;
+            Set<String> brands = selectedBrand != null ? Set.of(selectedBrand) : Set.of();
+            int priceChoice = priceFacetCombo.getSelectedIndex();
+            Set<PriceBucket> buckets = priceChoice > 0
+                    ? EnumSet.of(PriceBucket.values()[priceChoice - 1])
+                    : EnumSet.noneOf(PriceBucket.class);
 
-            for (CarModel car : filteredModels) {
+            // Query syntax (brand:BMW price<3e7 ...) is compiled by the service; fuzzy results keep their ranking
+            FacetedResult result;
+            try {
+                if (InventoryQuery.looksLikeQuery(query)) {
+                    result = service.queryInventoryFaceted(query, minPrice, maxPrice, inStock, brands, buckets, pageOffset[0], FILTER_PAGE_SIZE);
+                } else if (fuzzyCheck.isSelected() && !query.trim().isEmpty()) {
+                    result = service.fuzzySearchFaceted(query, minPrice, maxPrice, inStock, brands, buckets, pageOffset[0], FILTER_PAGE_SIZE);
+                } else {
+                    result = service.filterInventoryFaceted(query, minPrice, maxPrice, inStock, brands, buckets, pageOffset[0], FILTER_PAGE_SIZE);
+                }
+            } catch (QuerySyntaxException ex) {
+                showErrorDialog("Invalid search query: " + ex.getMessage());
+                return;
+            }
+            tableModel.setRowCount(0);
+
+            // Refresh the facet labels, keeping the current selections
+            brandFacetValues.clear();
+            brandFacetCombo.removeAllItems();
+            brandFacetCombo.addItem("All Brands");
+            for (Map.Entry<String, Integer> e : result.getBrandCounts().entrySet()) {
+                brandFacetValues.add(e.getKey());
+                brandFacetCombo.addItem(FacetedResult.label(e.getKey(), e.getValue()));
+            }
+            brandFacetCombo.setSelectedIndex(selectedBrand != null ? brandFacetValues.indexOf(selectedBrand) + 1 : 0);
+            for (PriceBucket bucket : PriceBucket.values()) {
+                priceFacetCombo.removeItemAt(bucket.ordinal() + 1);
+                priceFacetCombo.insertItemAt(FacetedResult.label(bucket.getLabel(), result.getPriceBucketCounts().get(bucket)), bucket.ordinal() + 1);
+            }
+            priceFacetCombo.setSelectedIndex(priceChoice);
+            inStockCheck.setText(FacetedResult.label("In Stock Only", result.getInStockCount()));
+
+            int shownTo = result.getOffset() + result.getCars().size();
+            pageLabel.setText(result.getTotalCount() == 0 ? "No matches"
+                    : (result.getOffset() + 1) + " - " + shownTo + " of " + result.getTotalCount());
+            prevPageBtn.setEnabled(result.getOffset() > 0);
+            nextPageBtn.setEnabled(shownTo < result.getTotalCount());
+
+            for (CarModel car : result.getCars()) {
                 tableModel.addRow(new Object[]{
                         car.getBrand(),
                         car.getModel(),
@@ -855,12 +950,27 @@ public class ShowroomGUI extends JFrame {
         };
 
         updateTable.run();
-        searchBtn.addActionListener(e -> updateTable.run());
+        searchBtn.addActionListener(e -> {
+            pageOffset[0] = 0;
+            updateTable.run();
+        });
+        prevPageBtn.addActionListener(e -> {
+            pageOffset[0] = Math.max(0, pageOffset[0] - FILTER_PAGE_SIZE);
+            updateTable.run();
+        });
+        nextPageBtn.addActionListener(e -> {
+            pageOffset[0] += FILTER_PAGE_SIZE;
+            updateTable.run();
+        });
         resetBtn.addActionListener(e -> {
+            pageOffset[0] = 0;
             searchField.setText("Search Brand or Model..."); styleSearchField(searchField, "Search Brand or Model...");
             minPriceField.setText("Min Price"); styleSearchField(minPriceField, "Min Price");
             maxPriceField.setText("Max Price"); styleSearchField(maxPriceField, "Max Price");
             inStockCheck.setSelected(false);
+            fuzzyCheck.setSelected(false);
+            brandFacetCombo.setSelectedIndex(0);
+            priceFacetCombo.setSelectedIndex(0);
             updateTable.run();
         });
 
@@ -1093,7 +1203,7 @@ public class ShowroomGUI extends JFrame {
 
         panel.add(createHeaderPanel("Key Financial Reports"), BorderLayout.NORTH);
 
-        JPanel reportGrid = new JPanel(new GridLayout(4, 2, 20, 30));
+        JPanel reportGrid = new JPanel(new GridLayout(7, 2, 20, 30));
         reportGrid.setBackground(PRIMARY_BG); // Manual Style
         reportGrid.setBorder(new EmptyBorder(50, 100, 50, 100));
 
@@ -1103,17 +1213,91 @@ public class ShowroomGUI extends JFrame {
         double totalRevenue = service.getTotalRevenue();
         addReportMetric(reportGrid, "Total Sales Revenue (Lifetime):", "Rs " + InventoryService.formatPrice(totalRevenue), true);
 
-        int totalSales = service.getSalesLog().size();
+        LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        double monthRevenue = service.getRevenueBetween(monthStart, monthStart.plusMonths(1).minusSeconds(1));
+        addReportMetric(reportGrid, "Sales Revenue (This Month):", "Rs " + InventoryService.formatPrice(monthRevenue), false);
+
+        long totalSales = service.getTotalSalesCount();
         addReportMetric(reportGrid, "Total Units Sold:", String.valueOf(totalSales) + " Units", false);
 
         String bestSeller = service.getBestSellingModel();
         addReportMetric(reportGrid, "Best Selling Model:", bestSeller, false);
 
+        addReportMetric(reportGrid, "Top Sellers (Last 7 Days):", topSellers(7), false);
+        addReportMetric(reportGrid, "Top Sellers (Last 30 Days):", topSellers(30), false);
+
         panel.add(reportGrid, BorderLayout.CENTER);
 
+        // Per-brand breakdown, read from the service's running totals
+        String[] columnNames = {"Brand", "Models", "Units in Stock", "Stock Value (Rs)", "Units Sold", "Revenue (Rs)"};
+        DefaultTableModel brandModel = new DefaultTableModel(columnNames, 0) {
+            @Override public boolean isCellEditable(int row, int column) { return false; }
+        };
+        for (Map.Entry<String, ReportTotals.BrandTotals> e : service.getBrandTotals().entrySet()) {
+            ReportTotals.BrandTotals totals = e.getValue();
+            brandModel.addRow(new Object[]{
+                    e.getKey(),
+                    totals.getModels(),
+                    totals.getUnitsInStock(),
+                    InventoryService.formatPrice(totals.getInventoryValue()),
+                    totals.getUnitsSold(),
+                    InventoryService.formatPrice(totals.getRevenue())
+            });
+        }
+        JScrollPane brandScroll = createReportTable(brandModel);
+
+        // Month by month for the last year, from the service's sales rollups
+        DefaultTableModel monthModel = new DefaultTableModel(new String[]{"Month", "Units Sold", "Revenue (Rs)"}, 0) {
+            @Override public boolean isCellEditable(int row, int column) { return false; }
+        };
+        LocalDateTime trendEnd = monthStart.plusMonths(1);
+        DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MMM yyyy");
+        service.getSalesTrend(SalesRollup.Granularity.MONTH, trendEnd.minusMonths(12), trendEnd)
+                .forEach((month, totals) -> monthModel.insertRow(0, new Object[]{
+                        month.format(monthFormat),
+                        totals.getUnits(),
+                        InventoryService.formatPrice(totals.getRevenue())
+                }));
+        JScrollPane monthScroll = createReportTable(monthModel);
+
+        JPanel tables = new JPanel(new BorderLayout(10, 0));
+        tables.setBackground(PRIMARY_BG); // Manual Style
+        tables.add(brandScroll, BorderLayout.CENTER);
+        monthScroll.setPreferredSize(new Dimension(380, 200));
+        tables.add(monthScroll, BorderLayout.EAST);
+        panel.add(tables, BorderLayout.SOUTH);
+
         return panel;
     }
 
+    // A read-only report table styled like the rest of the Reports screen
+    private JScrollPane createReportTable(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setForeground(TEXT_COLOR);
+        table.setBackground(PRIMARY_BG.brighter());
+        table.setGridColor(PRIMARY_BG.darker());
+        table.setSelectionBackground(BUTTON_COLOR.darker());
+
+        JTableHeader header = table.getTableHeader();
+        header.setBackground(PRIMARY_BG.darker());
+        header.setForeground(Color.BLACK); // Black header text
+        header.setFont(new Font("SansSerif", Font.BOLD, 14));
+
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.getViewport().setBackground(PRIMARY_BG);
+        scroll.setPreferredSize(new Dimension(0, 200));
+        return scroll;
+    }
+
+    // The three best sellers of the window, e.g. "BMW X1 (4), Audi Q8 (2)"
+    private String topSellers(int days) {
+        List<String> names = new ArrayList<>();
+        for (SalesRanking.Entry entry : service.getTopSellingModels(3, days)) {
+            names.add(entry.getName() + " (" + entry.getUnits() + ")");
+        }
+        return names.isEmpty() ? "N/A (No sales)" : String.join(", ", names);
+    }
+
     private void addReportMetric(JPanel panel, String title, String value, boolean highlight) {
         JLabel titleLabel = new JLabel(title, JLabel.RIGHT);
         titleLabel.setFont(new Font("SansSerif", Font.BOLD, 18));
@@ -0,0 +1,87 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+import showroom.model.SearchKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Secondary index from brand to its models, maintained incrementally on every mutation.
+ * {@link #getBrands()} returns the distinct brand spellings in natural order and
+ * {@link #getModels(String)} matches the brand case-insensitively; both cost about the size
+ * of their result rather than the size of the inventory.
+ */
+public class BrandIndex {
+    // Exact brand spelling -> number of cars using it; drives the sorted brand list
+    private final TreeMap<String, Integer> brandCounts = new TreeMap<>();
+    // Case-folded brand -> its cars, in the order they were indexed
+    private final Map<String, List<CarModel>> carsByBrand = new HashMap<>();
+
+    public void add(CarModel car) {
+        brandCounts.merge(car.getBrand(), 1, Integer::sum);
+        carsByBrand.computeIfAbsent(car.getFoldedBrand(), k -> new ArrayList<>()).add(car);
+    }
+
+    /**
+     * Removes the car as it was indexed under the given brand (its fields may already have changed).
+     */
+    public void remove(String brand, CarModel car) {
+        brandCounts.computeIfPresent(brand, (k, count) -> count == 1 ? null : count - 1);
+        String folded = brand.equals(car.getBrand()) ? car.getFoldedBrand() : SearchKeys.fold(brand);
+        List<CarModel> cars = carsByBrand.get(folded);
+        if (cars == null) return;
+        for (int i = 0; i < cars.size(); i++) {
+            if (cars.get(i) == car) {
+                cars.remove(i);
+                break;
+            }
+        }
+        if (cars.isEmpty()) carsByBrand.remove(folded);
+    }
+
+    public void remove(CarModel car) {
+        remove(car.getBrand(), car);
+    }
+
+    /**
+     * Moves a car whose brand was changed in place; a car keeping its brand is left where it is.
+     */
+    public void rename(String oldBrand, CarModel car) {
+        if (oldBrand.equals(car.getBrand())) return;
+        remove(oldBrand, car);
+        add(car);
+    }
+
+    /**
+     * Distinct brand names, sorted.
+     */
+    public List<String> getBrands() {
+        return new ArrayList<>(brandCounts.keySet());
+    }
+
+    /**
+     * Cars of the given brand, compared case-insensitively.
+     */
+    public List<CarModel> getModels(String brand) {
+        if (brand == null) return new ArrayList<>();
+        List<CarModel> cars = carsByBrand.get(SearchKeys.fold(brand));
+        return cars != null ? new ArrayList<>(cars) : new ArrayList<>();
+    }
+
+    /**
+     * Number of cars of the given brand, compared case-insensitively, without copying them.
+     */
+    public int count(String brand) {
+        List<CarModel> cars = carsByBrand.get(SearchKeys.fold(brand));
+        return cars != null ? cars.size() : 0;
+    }
+
+    public void clear() {
+        brandCounts.clear();
+        carsByBrand.clear();
+    }
+}
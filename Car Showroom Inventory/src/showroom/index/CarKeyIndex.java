@@ -0,0 +1,101 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+import showroom.model.SearchKeys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from a case-folded brand+model key to the car, for O(1) {@code getCarModel} lookups.
+ * Matching follows {@link String#equalsIgnoreCase}. If the inventory ever holds several cars with
+ * the same brand and model, they are kept in insertion order and the first one is returned,
+ * like the linear scan this replaces.
+ */
+public class CarKeyIndex {
+    // Value is a CarModel, or a List<CarModel> while a key has duplicates
+    private final Map<String, Object> byKey = new HashMap<>();
+
+    public CarKeyIndex() {
+    }
+
+    public CarKeyIndex(List<CarModel> inventory) {
+        for (CarModel car : inventory) {
+            add(car);
+        }
+    }
+
+    /**
+     * Composite lookup key: both parts folded per code point the way equalsIgnoreCase compares them.
+     * Indexed cars carry theirs precomputed ({@link CarModel#getLookupKey()}).
+     */
+    public static String key(String brand, String model) {
+        return SearchKeys.lookupKey(brand, model);
+    }
+
+    public CarModel get(String brand, String model) {
+        if (brand == null || model == null) return null;
+        return first(byKey.get(key(brand, model)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CarModel first(Object entry) {
+        if (entry instanceof List) return ((List<CarModel>) entry).get(0);
+        return (CarModel) entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void add(CarModel car) {
+        byKey.merge(car.getLookupKey(), car, (existing, added) -> {
+            List<CarModel> cars;
+            if (existing instanceof List) {
+                cars = (List<CarModel>) existing;
+            } else {
+                cars = new ArrayList<>(2);
+                cars.add((CarModel) existing);
+            }
+            cars.add((CarModel) added);
+            return cars;
+        });
+    }
+
+    /**
+     * Removes the car as it was indexed under brand/model (its fields may already have changed).
+     */
+    public void remove(String brand, String model, CarModel car) {
+        removeKey(key(brand, model), car);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeKey(String key, CarModel car) {
+        byKey.computeIfPresent(key, (k, existing) -> {
+            if (existing == car) return null;
+            if (!(existing instanceof List)) return existing;
+            List<CarModel> cars = (List<CarModel>) existing;
+            cars.removeIf(c -> c == car);
+            return cars.size() == 1 ? cars.get(0) : cars;
+        });
+    }
+
+    public void remove(CarModel car) {
+        removeKey(car.getLookupKey(), car);
+    }
+
+    /**
+     * Re-keys a car whose brand and/or model were changed in place.
+     */
+    public void rename(String oldBrand, String oldModel, CarModel car) {
+        remove(oldBrand, oldModel, car);
+        add(car);
+    }
+
+    public void clear() {
+        byKey.clear();
+    }
+
+    public int keyCount() {
+        return byKey.size();
+    }
+}
@@ -0,0 +1,224 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmap index over the filter facets: in stock, brand and price bucket.
+ * Each car gets a small row id (freed ids are reused, so the ids stay dense) and every facet value
+ * keeps a {@link RoaringBitmap} of the rows that have it. Selections are combined with bitmap AND/OR,
+ * and facet counts are intersection cardinalities, so neither touches the cars themselves.
+ * Each row remembers the values it was indexed under, so {@link #refresh} only has to look at the
+ * car's current fields.
+ */
+public class FacetIndex {
+
+    /**
+     * Fixed price bands for the price facet, in rupees.
+     */
+    public enum PriceBucket {
+        UNDER_10_LAKH("Under 10 L", 0, 1_000_000),
+        TO_50_LAKH("10 L - 50 L", 1_000_000, 5_000_000),
+        TO_1_CRORE("50 L - 1 Cr", 5_000_000, 10_000_000),
+        TO_5_CRORE("1 Cr - 5 Cr", 10_000_000, 50_000_000),
+        OVER_5_CRORE("5 Cr +", 50_000_000, Double.POSITIVE_INFINITY);
+
+        private final String label;
+        private final double min; // Inclusive
+        private final double max; // Exclusive
+
+        PriceBucket(String label, double min, double max) {
+            this.label = label;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String getLabel() { return label; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+
+        public static PriceBucket of(double price) {
+            for (PriceBucket bucket : values()) {
+                if (price < bucket.max) return bucket;
+            }
+            return OVER_5_CRORE;
+        }
+    }
+
+    private static final PriceBucket[] BUCKETS = PriceBucket.values();
+
+    private final Map<CarModel, Integer> rowIds = new IdentityHashMap<>();
+    private CarModel[] rows = new CarModel[16];
+    private String[] rowBrands = new String[16];
+    private PriceBucket[] rowBuckets = new PriceBucket[16];
+    private int rowCount; // Highest row id handed out + 1
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final RoaringBitmap inStock = new RoaringBitmap();
+    // Exact brand spelling -> rows, sorted like the brand combo
+    private final TreeMap<String, RoaringBitmap> byBrand = new TreeMap<>();
+    private final RoaringBitmap[] byBucket = new RoaringBitmap[BUCKETS.length];
+
+    public FacetIndex() {
+        for (int i = 0; i < byBucket.length; i++) {
+            byBucket[i] = new RoaringBitmap();
+        }
+    }
+
+    public FacetIndex(List<CarModel> inventory) {
+        this();
+        for (CarModel car : inventory) {
+            add(car);
+        }
+    }
+
+    public void add(CarModel car) {
+        if (rowIds.containsKey(car)) return;
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (rowCount == rows.length) {
+                int capacity = rows.length * 2;
+                rows = Arrays.copyOf(rows, capacity);
+                rowBrands = Arrays.copyOf(rowBrands, capacity);
+                rowBuckets = Arrays.copyOf(rowBuckets, capacity);
+            }
+            id = rowCount++;
+        }
+        rowIds.put(car, id);
+        rows[id] = car;
+        all.add(id);
+        if (car.getQuantity() > 0) inStock.add(id);
+        rowBrands[id] = car.getBrand();
+        byBrand.computeIfAbsent(car.getBrand(), k -> new RoaringBitmap()).add(id);
+        rowBuckets[id] = PriceBucket.of(car.getPrice());
+        byBucket[rowBuckets[id].ordinal()].add(id);
+    }
+
+    public void remove(CarModel car) {
+        Integer boxed = rowIds.remove(car);
+        if (boxed == null) return;
+        int id = boxed;
+        all.remove(id);
+        inStock.remove(id);
+        removeBrand(id);
+        byBucket[rowBuckets[id].ordinal()].remove(id);
+        rows[id] = null;
+        rowBrands[id] = null;
+        rowBuckets[id] = null;
+        if (freeCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        freeIds[freeCount++] = id;
+    }
+
+    private void removeBrand(int id) {
+        RoaringBitmap rowsOfBrand = byBrand.get(rowBrands[id]);
+        rowsOfBrand.remove(id);
+        if (rowsOfBrand.isEmpty()) byBrand.remove(rowBrands[id]);
+    }
+
+    /**
+     * Re-reads the brand, price and quantity of a car changed in place (an update or a sale)
+     * and moves its row between facet values where they changed.
+     */
+    public void refresh(CarModel car) {
+        Integer boxed = rowIds.get(car);
+        if (boxed == null) return;
+        int id = boxed;
+        if (car.getQuantity() > 0) inStock.add(id);
+        else inStock.remove(id);
+        if (!rowBrands[id].equals(car.getBrand())) {
+            removeBrand(id);
+            rowBrands[id] = car.getBrand();
+            byBrand.computeIfAbsent(car.getBrand(), k -> new RoaringBitmap()).add(id);
+        }
+        PriceBucket bucket = PriceBucket.of(car.getPrice());
+        if (bucket != rowBuckets[id]) {
+            byBucket[rowBuckets[id].ordinal()].remove(id);
+            rowBuckets[id] = bucket;
+            byBucket[bucket.ordinal()].add(id);
+        }
+    }
+
+    public void clear() {
+        rowIds.clear();
+        Arrays.fill(rows, 0, rowCount, null);
+        Arrays.fill(rowBrands, 0, rowCount, null);
+        Arrays.fill(rowBuckets, 0, rowCount, null);
+        rowCount = 0;
+        freeCount = 0;
+        all.clear();
+        inStock.clear();
+        byBrand.clear();
+        for (RoaringBitmap bucket : byBucket) {
+            bucket.clear();
+        }
+    }
+
+    public int size() { return rowIds.size(); }
+
+    public int inStockCount() { return inStock.cardinality(); }
+
+    /**
+     * Row id of the car, or -1 when it is not indexed.
+     */
+    public int rowOf(CarModel car) {
+        Integer id = rowIds.get(car);
+        return id != null ? id : -1;
+    }
+
+    public CarModel carAt(int id) {
+        return rows[id];
+    }
+
+    public RoaringBitmap allRows() { return all; }
+    public RoaringBitmap inStockRows() { return inStock; }
+
+    /**
+     * Rows of the given cars; cars that are not indexed are skipped.
+     */
+    public RoaringBitmap rowsOf(List<CarModel> cars) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (CarModel car : cars) {
+            Integer id = rowIds.get(car);
+            if (id != null) result.add(id);
+        }
+        return result;
+    }
+
+    public Map<String, RoaringBitmap> brandRows() { return byBrand; }
+
+    public RoaringBitmap bucketRows(PriceBucket bucket) {
+        return byBucket[bucket.ordinal()];
+    }
+
+    /**
+     * Union of the rows of the given brands (exact spellings).
+     */
+    public RoaringBitmap brandRows(Iterable<String> brands) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (String brand : brands) {
+            RoaringBitmap rowsOfBrand = byBrand.get(brand);
+            if (rowsOfBrand != null) result = RoaringBitmap.or(result, rowsOfBrand);
+        }
+        return result;
+    }
+
+    /**
+     * Union of the rows of the given price buckets.
+     */
+    public RoaringBitmap bucketRows(Iterable<PriceBucket> buckets) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (PriceBucket bucket : buckets) {
+            result = RoaringBitmap.or(result, byBucket[bucket.ordinal()]);
+        }
+        return result;
+    }
+}
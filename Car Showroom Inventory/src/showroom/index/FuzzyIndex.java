@@ -0,0 +1,264 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant search over brand and model words, backed by a BK-tree.
+ * Every lowercased word of a car's brand and model is a term in the tree; a query word is matched
+ * against the tree with Levenshtein distance, and the triangle inequality lets each lookup skip
+ * every subtree whose terms are too far away, so only a small part of the vocabulary is compared.
+ * A car matches when every query word is within the allowed distance of one of its terms; results
+ * are ranked by total distance.
+ *
+ * Terms whose cars have all been removed stay in the tree as empty nodes; the tree is rebuilt once
+ * they outnumber the live terms.
+ */
+public class FuzzyIndex {
+    private Node root;
+    private final Map<String, Node> nodesByTerm = new HashMap<>();
+    private int liveTerms;
+    // Scratch rows for the distance computation; the index is not shared between threads
+    private int[] prevRow = new int[32];
+    private int[] currRow = new int[32];
+
+    private static final class Node {
+        final String term;
+        final List<CarModel> cars = new ArrayList<>(1);
+        int[] childDistances = new int[0];
+        Node[] children = new Node[0];
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < childDistances.length; i++) {
+                if (childDistances[i] == distance) return children[i];
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node node) {
+            int n = childDistances.length;
+            childDistances = Arrays.copyOf(childDistances, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            childDistances[n] = distance;
+            children[n] = node;
+        }
+    }
+
+    /**
+     * A ranked match: the car and the summed edit distance of the query words.
+     */
+    public static final class Match {
+        private final CarModel car;
+        private final int distance;
+
+        Match(CarModel car, int distance) {
+            this.car = car;
+            this.distance = distance;
+        }
+
+        public CarModel getCar() { return car; }
+        public int getDistance() { return distance; }
+    }
+
+    public FuzzyIndex() {
+    }
+
+    public FuzzyIndex(List<CarModel> inventory) {
+        for (CarModel car : inventory) {
+            add(car);
+        }
+    }
+
+    /**
+     * Lowercased words of the text, split on anything that is not a letter or digit.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> terms(String brand, String model) {
+        Set<String> terms = new LinkedHashSet<>(words(brand));
+        terms.addAll(words(model));
+        return terms;
+    }
+
+    public void add(CarModel car) {
+        for (String term : terms(car.getBrand(), car.getModel())) {
+            Node node = nodesByTerm.get(term);
+            if (node == null) node = insert(term);
+            if (node.cars.isEmpty()) liveTerms++;
+            node.cars.add(car);
+        }
+    }
+
+    private Node insert(String term) {
+        Node node = new Node(term);
+        nodesByTerm.put(term, node);
+        if (root == null) {
+            root = node;
+            return node;
+        }
+        Node current = root;
+        while (true) {
+            int d = distance(term, current.term);
+            Node next = current.child(d);
+            if (next == null) {
+                current.addChild(d, node);
+                return node;
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * Removes the car as it was indexed under brand/model (its fields may already have changed).
+     */
+    public void remove(String brand, String model, CarModel car) {
+        for (String term : terms(brand, model)) {
+            Node node = nodesByTerm.get(term);
+            if (node == null) continue;
+            if (node.cars.removeIf(c -> c == car) && node.cars.isEmpty()) liveTerms--;
+        }
+        if (nodesByTerm.size() > 64 && liveTerms < nodesByTerm.size() / 2) rebuild();
+    }
+
+    public void remove(CarModel car) {
+        remove(car.getBrand(), car.getModel(), car);
+    }
+
+    public void rename(String oldBrand, String oldModel, CarModel car) {
+        remove(oldBrand, oldModel, car);
+        add(car);
+    }
+
+    private void rebuild() {
+        List<Node> live = new ArrayList<>();
+        for (Node node : nodesByTerm.values()) {
+            if (!node.cars.isEmpty()) live.add(node);
+        }
+        clear();
+        for (Node old : live) {
+            Node node = insert(old.term);
+            node.cars.addAll(old.cars);
+            liveTerms++;
+        }
+    }
+
+    public void clear() {
+        root = null;
+        nodesByTerm.clear();
+        liveTerms = 0;
+    }
+
+    /**
+     * Cars matching every word of the query within the edit budget, best first.
+     * Words of up to four characters are allowed at most one edit, since two edits would turn
+     * them into almost anything.
+     *
+     * @param maxEdits edit distance allowed per query word
+     */
+    public List<Match> search(String query, int maxEdits) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty() || root == null) return new ArrayList<>();
+
+        // Best distance per car for each query word; a car missing any word drops out
+        Map<CarModel, Integer> totals = null;
+        for (String word : queryWords) {
+            int budget = word.length() <= 4 ? Math.min(maxEdits, 1) : maxEdits;
+            Map<CarModel, Integer> best = new IdentityHashMap<>();
+            collect(root, word, budget, best);
+            if (totals == null) {
+                totals = best;
+            } else {
+                Map<CarModel, Integer> kept = new IdentityHashMap<>();
+                for (Map.Entry<CarModel, Integer> e : totals.entrySet()) {
+                    Integer d = best.get(e.getKey());
+                    if (d != null) kept.put(e.getKey(), e.getValue() + d);
+                }
+                totals = kept;
+            }
+            if (totals.isEmpty()) break;
+        }
+
+        List<Match> matches = new ArrayList<>(totals.size());
+        for (Map.Entry<CarModel, Integer> e : totals.entrySet()) {
+            matches.add(new Match(e.getKey(), e.getValue()));
+        }
+        matches.sort((a, b) -> {
+            int c = Integer.compare(a.distance, b.distance);
+            return c != 0 ? c : a.car.getSortKey().compareTo(b.car.getSortKey());
+        });
+        return matches;
+    }
+
+    private void collect(Node node, String word, int budget, Map<CarModel, Integer> best) {
+        // Iterative walk; only children within [d - budget, d + budget] can hold matches
+        List<Node> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.remove(stack.size() - 1);
+            int d = distance(word, current.term);
+            if (d <= budget) {
+                for (CarModel car : current.cars) {
+                    best.merge(car, d, Math::min);
+                }
+            }
+            for (int i = 0; i < current.childDistances.length; i++) {
+                int cd = current.childDistances[i];
+                if (cd >= d - budget && cd <= d + budget) stack.add(current.children[i]);
+            }
+        }
+    }
+
+    /**
+     * Levenshtein distance (insertions, deletions and substitutions each cost 1).
+     */
+    int distance(String a, String b) {
+        if (a.equals(b)) return 0;
+        if (a.isEmpty()) return b.length();
+        if (b.isEmpty()) return a.length();
+        if (prevRow.length <= b.length()) {
+            prevRow = new int[b.length() * 2];
+            currRow = new int[b.length() * 2];
+        }
+        int[] prev = prevRow;
+        int[] curr = currRow;
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] t = prev;
+            prev = curr;
+            curr = t;
+        }
+        return prev[b.length()];
+    }
+}
@@ -0,0 +1,123 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Price-ordered index: a primitive array of prices sorted ascending, with the car for each slot
+ * in a parallel array. A price band is located with two binary searches, so its size is known
+ * exactly before any row is touched and only the rows inside it are visited.
+ * Mutations shift the arrays (one memmove); sales do not change prices and never touch the index.
+ */
+public class PriceIndex {
+    private double[] prices = new double[16];
+    private CarModel[] cars = new CarModel[16];
+    private int size;
+
+    public PriceIndex() {
+    }
+
+    public PriceIndex(List<CarModel> inventory) {
+        rebuild(inventory);
+    }
+
+    public void rebuild(List<CarModel> inventory) {
+        CarModel[] sorted = inventory.toArray(new CarModel[0]);
+        Arrays.sort(sorted, (a, b) -> Double.compare(a.getPrice(), b.getPrice()));
+        size = sorted.length;
+        cars = Arrays.copyOf(sorted, Math.max(16, size));
+        prices = new double[cars.length];
+        for (int i = 0; i < size; i++) {
+            prices[i] = sorted[i].getPrice();
+        }
+    }
+
+    public int size() { return size; }
+
+    public void add(CarModel car) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            cars = Arrays.copyOf(cars, size * 2);
+        }
+        double price = car.getPrice();
+        int at = upperBound(price); // After equal prices, so ties keep insertion order
+        System.arraycopy(prices, at, prices, at + 1, size - at);
+        System.arraycopy(cars, at, cars, at + 1, size - at);
+        prices[at] = price;
+        cars[at] = car;
+        size++;
+    }
+
+    /**
+     * Removes the car as it was indexed at the given price (its price field may already have changed).
+     */
+    public void remove(double price, CarModel car) {
+        for (int i = lowerBound(price); i < size && Double.compare(prices[i], price) == 0; i++) {
+            if (cars[i] == car) {
+                System.arraycopy(prices, i + 1, prices, i, size - i - 1);
+                System.arraycopy(cars, i + 1, cars, i, size - i - 1);
+                size--;
+                cars[size] = null;
+                return;
+            }
+        }
+    }
+
+    public void remove(CarModel car) {
+        remove(car.getPrice(), car);
+    }
+
+    /**
+     * Moves a car whose price was changed in place.
+     */
+    public void reprice(double oldPrice, CarModel car) {
+        if (Double.compare(oldPrice, car.getPrice()) == 0) return;
+        remove(oldPrice, car);
+        add(car);
+    }
+
+    /**
+     * First slot whose price is >= min.
+     */
+    public int lowerBound(double min) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(prices[mid], min) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * First slot whose price is > max.
+     */
+    public int upperBound(double max) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(prices[mid], max) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Exact number of cars priced within [min, max].
+     */
+    public int count(double min, double max) {
+        if (min > max) return 0;
+        return Math.max(0, upperBound(max) - lowerBound(min));
+    }
+
+    public CarModel carAt(int slot) {
+        return cars[slot];
+    }
+
+    public void clear() {
+        Arrays.fill(cars, 0, size, null);
+        size = 0;
+    }
+}
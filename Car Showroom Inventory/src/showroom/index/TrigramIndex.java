@@ -0,0 +1,260 @@
+package showroom.index;
+
+import showroom.model.CarModel;
+import showroom.model.SearchKeys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted trigram index over the lowercased brand and model of every car, for substring search.
+ * A query of three or more characters is answered by intersecting the posting lists of its
+ * trigrams (smallest first) and then checking the few remaining candidates with
+ * {@link String#contains}; shorter queries fall back to scanning the lowercased names each car
+ * carries ({@link CarModel#getSearchBrand()}), which still avoids lowercasing every car per query. Matching is the same as
+ * {@code brand.toLowerCase().contains(q) || model.toLowerCase().contains(q)}.
+ *
+ * Each car gets a row id; ids only grow, so posting lists stay sorted by appending. Removed rows
+ * leave a hole that searches skip, and the index compacts itself once half the rows are holes.
+ */
+public class TrigramIndex {
+    private static final int MIN_INDEXED_QUERY = 3;
+
+    private final PostingsTable postings = new PostingsTable();
+    private final Map<CarModel, Integer> rowIds = new IdentityHashMap<>();
+    private CarModel[] rows = new CarModel[16];
+    private int rowCount; // Row ids handed out, including holes
+    private int liveCount;
+
+    // Growable sorted int list
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) return; // Trigram repeated within the same car
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+    }
+
+    // Open-addressing trigram -> postings table; avoids boxing a Long per trigram while indexing
+    private static final class PostingsTable {
+        private static final long EMPTY = -1; // Trigrams are 48-bit, never negative
+        long[] keys = newKeys(1024);
+        Postings[] values = new Postings[1024];
+        int size;
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & mask;
+        }
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+                if (keys[i] == EMPTY) return null;
+            }
+        }
+
+        Postings getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            Postings p = new Postings();
+            keys[i] = key;
+            values[i] = p;
+            if (++size * 2 > keys.length) grow();
+            return p;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new Postings[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == EMPTY) continue;
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY) i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    public TrigramIndex() {
+    }
+
+    public TrigramIndex(List<CarModel> inventory) {
+        for (CarModel car : inventory) {
+            add(car);
+        }
+    }
+
+    /**
+     * Normalizes text the way the search box compares it.
+     */
+    public static String normalize(String text) {
+        return SearchKeys.lower(text);
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    public void add(CarModel car) {
+        if (rowIds.containsKey(car)) return;
+        if (rowCount == rows.length) rows = Arrays.copyOf(rows, rows.length * 2);
+        int id = rowCount++;
+        rows[id] = car;
+        rowIds.put(car, id);
+        liveCount++;
+        indexText(car.getSearchBrand(), id);
+        indexText(car.getSearchModel(), id);
+    }
+
+    private void indexText(String text, int id) {
+        for (int i = 0; i + MIN_INDEXED_QUERY <= text.length(); i++) {
+            postings.getOrCreate(trigram(text, i)).add(id);
+        }
+    }
+
+    public void remove(CarModel car) {
+        Integer id = rowIds.remove(car);
+        if (id == null) return;
+        rows[id] = null;
+        liveCount--;
+        if (rowCount > 64 && liveCount < rowCount / 2) compact();
+    }
+
+    /**
+     * Re-indexes a car whose brand and/or model were changed in place.
+     */
+    public void rename(CarModel car) {
+        remove(car);
+        add(car);
+    }
+
+    private void compact() {
+        List<CarModel> live = new ArrayList<>(liveCount);
+        for (int i = 0; i < rowCount; i++) {
+            if (rows[i] != null) live.add(rows[i]);
+        }
+        clear();
+        for (CarModel car : live) {
+            add(car);
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        rowIds.clear();
+        Arrays.fill(rows, 0, rowCount, null);
+        rowCount = 0;
+        liveCount = 0;
+    }
+
+    public int size() { return liveCount; }
+
+    /**
+     * Upper bound on the rows a search for the (normalized) query would have to check:
+     * the shortest posting list among its trigrams, or every row for queries too short to index.
+     */
+    public int estimate(String query) {
+        if (query.length() < MIN_INDEXED_QUERY) return liveCount;
+        int best = Integer.MAX_VALUE;
+        for (int i = 0; i + MIN_INDEXED_QUERY <= query.length(); i++) {
+            Postings p = postings.get(trigram(query, i));
+            if (p == null) return 0;
+            best = Math.min(best, p.size);
+        }
+        return best;
+    }
+
+    /**
+     * Cars whose lowercased brand or model contains the (normalized, non-empty) query, in row order.
+     */
+    public List<CarModel> search(String query) {
+        List<CarModel> result = new ArrayList<>();
+        if (query.length() < MIN_INDEXED_QUERY) {
+            for (int id = 0; id < rowCount; id++) {
+                if (rows[id] != null && matches(id, query)) result.add(rows[id]);
+            }
+            return result;
+        }
+
+        // Distinct trigrams of the query, smallest posting list first
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + MIN_INDEXED_QUERY <= query.length(); i++) {
+            Postings p = postings.get(trigram(query, i));
+            if (p == null) return result;
+            if (!lists.contains(p)) lists.add(p);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        Postings first = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        candidates:
+        for (int k = 0; k < first.size; k++) {
+            int id = first.ids[k];
+            for (int l = 1; l < lists.size(); l++) {
+                Postings p = lists.get(l);
+                int c = advance(p, cursors[l], id);
+                cursors[l] = c;
+                if (c == p.size) break candidates; // This list is exhausted: no later id can match
+                if (p.ids[c] != id) continue candidates;
+            }
+            // All trigrams present somewhere in brand or model; confirm the whole substring
+            if (rows[id] != null && matches(id, query)) result.add(rows[id]);
+        }
+        return result;
+    }
+
+    // First position at or after 'from' whose id is >= target (galloping, then binary search)
+    private static int advance(Postings p, int from, int target) {
+        int[] ids = p.ids;
+        if (from >= p.size || ids[from] >= target) return from;
+        int step = 1;
+        int lo = from;
+        int hi = from + 1;
+        while (hi < p.size && ids[hi] < target) {
+            lo = hi;
+            step <<= 1;
+            hi = from + step;
+        }
+        hi = Math.min(hi, p.size);
+        int idx = Arrays.binarySearch(ids, lo + 1, hi, target);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    private boolean matches(int id, String query) {
+        return matches(rows[id], query);
+    }
+
+    /**
+     * Same test as {@link #search} for a single car, on its precomputed lowercased names.
+     */
+    public boolean matches(CarModel car, String query) {
+        return car.getSearchBrand().contains(query) || car.getSearchModel().contains(query);
+    }
+}
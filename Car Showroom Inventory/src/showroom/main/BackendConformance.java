@@ -0,0 +1,222 @@
+package showroom.main;
+
+import showroom.model.CarModel;
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+import showroom.persistence.BinaryInventoryRepository;
+import showroom.persistence.CsvInventoryRepository;
+import showroom.persistence.InventoryRepository;
+import showroom.persistence.JdbcInventoryRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Conformance and throughput suite for the storage backends (csv, binary and jdbc).
+ * Each backend starts from an empty data folder and receives the same seeded sequence of adds,
+ * updates (including renames), removals and sales through the InventoryRepository SPI, checkpointing
+ * whenever it asks to, as InventoryService does. It is then closed and loaded again, and the
+ * reloaded inventory and sales log must equal the in-memory state the sequence produced, so every
+ * backend ends up with the same result. Prints mutations per second, close and reload times.
+ *
+ * The jdbc backend runs against -Dshowroom.jdbc.url, whose driver jar must be on the classpath; it
+ * should name an empty database. Without that property the jdbc backend is reported as skipped.
+ * The csv backend honours the usual -Dshowroom.sales.* durability properties.
+ *
+ * Usage: java -cp &lt;classes&gt; showroom.main.BackendConformance [cars] [mutations]
+ */
+public class BackendConformance {
+    public static void main(String[] args) throws IOException {
+        int carCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int mutationCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        String jdbcUrl = System.getProperty("showroom.jdbc.url");
+
+        List<String> rows = new ArrayList<>(); // Printed at the end, after the backends' own log output
+        boolean allPassed = true;
+        List<String> reference = null;
+        for (String backend : new String[]{"csv", "binary", "jdbc"}) {
+            if (backend.equals("jdbc") && jdbcUrl == null) {
+                rows.add(String.format("%-8s %12s %12s %12s %12s  %s", backend, "-", "-", "-", "-", "skipped: no -Dshowroom.jdbc.url"));
+                continue;
+            }
+            Path dir = Files.createTempDirectory("showroom-" + backend);
+            try {
+                String url = jdbcUrl;
+                Run run = new Run(carCount, mutationCount, () -> open(backend, dir, url));
+                String result;
+                try {
+                    result = run.execute();
+                } catch (IOException e) {
+                    result = "could not open: " + e.getMessage(); // e.g. no driver for the jdbc URL
+                }
+                // Every backend replays the same sequence, so the reloaded states must also agree with each other
+                if (result == null && reference != null && !reference.equals(run.reloadedState)) {
+                    result = "differs from the csv backend";
+                }
+                if (reference == null && result == null) reference = run.reloadedState;
+                allPassed &= result == null;
+                rows.add(String.format("%-8s %12.0f %12.0f %12.1f %12.1f  %s", backend, run.seedOpsPerSecond, run.mixedOpsPerSecond,
+                        run.closeMillis, run.reloadMillis, result == null ? "ok" : "FAILED: " + result));
+            } finally {
+                BenchmarkSupport.deleteRecursively(dir);
+            }
+        }
+        System.out.println();
+        BenchmarkSupport.printMachine();
+        System.out.println(carCount + " cars added, then " + mutationCount + " mixed mutations");
+        System.out.printf("%-8s %12s %12s %12s %12s  %s%n", "backend", "seed ops/s", "mixed ops/s", "close ms", "reload ms", "result");
+        rows.forEach(System.out::println);
+        System.out.println(allPassed ? "All backends conform." : "Some backends do not conform.");
+        if (!allPassed) System.exit(1);
+    }
+
+    private interface Opener {
+        InventoryRepository open();
+    }
+
+    private static InventoryRepository open(String backend, Path dir, String jdbcUrl) {
+        switch (backend) {
+            case "csv": return new CsvInventoryRepository(dir, true);
+            case "binary": return new BinaryInventoryRepository(dir);
+            default: return new JdbcInventoryRepository(jdbcUrl);
+        }
+    }
+
+    // One backend's pass through the sequence
+    private static final class Run {
+        private final int carCount;
+        private final int mutationCount;
+        private final Opener opener;
+        private final Random random = new Random(42);
+        private LocalDateTime clock = LocalDateTime.of(2024, 1, 1, 9, 0);
+        private int nextModel;
+
+        private InventoryRepository repository;
+        private final List<CarModel> inventory = new ArrayList<>();
+        private final SalesColumns sales = new SalesColumns();
+
+        double seedOpsPerSecond;
+        double mixedOpsPerSecond;
+        double closeMillis;
+        double reloadMillis;
+        List<String> reloadedState;
+
+        Run(int carCount, int mutationCount, Opener opener) {
+            this.carCount = carCount;
+            this.mutationCount = mutationCount;
+            this.opener = opener;
+        }
+
+        // Returns null when the reloaded state matches, otherwise what went wrong
+        String execute() throws IOException {
+            repository = opener.open();
+            repository.load(inventory, sales);
+            if (!inventory.isEmpty() || !sales.isEmpty()) return "new store is not empty";
+
+            long start = System.nanoTime();
+            for (int i = 0; i < carCount; i++) add();
+            seedOpsPerSecond = carCount / ((System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            for (int i = 0; i < mutationCount; i++) {
+                int kind = random.nextInt(10);
+                if (kind < 5) {
+                    sell();
+                } else if (kind < 8) {
+                    update();
+                } else if (kind < 9) {
+                    remove();
+                } else {
+                    add();
+                }
+            }
+            mixedOpsPerSecond = mutationCount / ((System.nanoTime() - start) / 1e9);
+            List<String> expected = state(inventory, sales);
+
+            start = System.nanoTime();
+            repository.checkpoint(inventory, sales); // As InventoryService.shutdown does
+            repository.close();
+            closeMillis = (System.nanoTime() - start) / 1e6;
+
+            List<CarModel> reloadedCars = new ArrayList<>();
+            SalesColumns reloadedSales = new SalesColumns();
+            InventoryRepository reopened = opener.open();
+            start = System.nanoTime();
+            reopened.load(reloadedCars, reloadedSales);
+            reloadMillis = (System.nanoTime() - start) / 1e6;
+            reopened.close();
+
+            reloadedState = state(reloadedCars, reloadedSales);
+            return firstDifference(expected, reloadedState);
+        }
+
+        private void add() {
+            CarModel car = BenchmarkSupport.car(random, nextModel++);
+            car.setImagePath("data/images/" + car.getBrand().toLowerCase() + ".jpg");
+            inventory.add(car);
+            repository.carAdded(car);
+            afterMutation();
+        }
+
+        private void update() {
+            if (inventory.isEmpty()) return;
+            CarModel car = inventory.get(random.nextInt(inventory.size()));
+            String oldBrand = car.getBrand();
+            String oldModel = car.getModel();
+            if (random.nextInt(4) == 0) car.setModel("Model " + nextModel++); // A rename
+            car.setPrice(car.getPrice() + random.nextInt(100_000));
+            car.setQuantity(random.nextInt(20));
+            repository.carUpdated(oldBrand, oldModel, car);
+            afterMutation();
+        }
+
+        private void remove() {
+            if (inventory.isEmpty()) return;
+            CarModel car = inventory.remove(random.nextInt(inventory.size()));
+            repository.carRemoved(car);
+            afterMutation();
+        }
+
+        private void sell() {
+            if (inventory.isEmpty()) return;
+            CarModel car = inventory.get(random.nextInt(inventory.size()));
+            if (car.getQuantity() <= 0) return;
+            car.setQuantity(car.getQuantity() - 1);
+            clock = clock.plusSeconds(60 + random.nextInt(3_600)); // Crosses several monthly sales segments
+            SaleModel sale = new SaleModel(clock, car.getBrand(), car.getModel(), car.getPrice());
+            sales.add(sale);
+            repository.carSold(car, sale);
+            afterMutation();
+        }
+
+        private void afterMutation() {
+            if (repository.needsCheckpoint()) repository.checkpoint(inventory, sales);
+        }
+    }
+
+    // The CSV form of every car and sale, in order
+    private static List<String> state(List<CarModel> cars, List<SaleModel> sales) {
+        List<String> lines = new ArrayList<>(cars.size() + sales.size() + 1);
+        for (CarModel car : cars) lines.add(car.toString());
+        lines.add("-- sales --");
+        for (SaleModel sale : sales) lines.add(sale.toString());
+        return lines;
+    }
+
+    private static String firstDifference(List<String> expected, List<String> actual) {
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (!expected.get(i).equals(actual.get(i))) {
+                return "line " + i + " is '" + actual.get(i) + "', expected '" + expected.get(i) + "'";
+            }
+        }
+        if (expected.size() != actual.size()) {
+            return "reloaded " + actual.size() + " lines, expected " + expected.size();
+        }
+        return null;
+    }
+}
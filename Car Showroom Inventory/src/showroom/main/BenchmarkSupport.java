@@ -0,0 +1,70 @@
+package showroom.main;
+
+import showroom.model.CarModel;
+import showroom.model.SaleModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Shared parts of the benchmark programs in this package: the seeded synthetic data they
+ * measure, a best-of-N timer and the machine banner, so every program builds its data and takes its
+ * timings the same way.
+ */
+final class BenchmarkSupport {
+    static final String[] BRANDS = {"Toyota", "BMW", "Audi", "Honda", "Hyundai", "Kia", "Tata", "Mahindra"};
+
+    private static long sink; // Results of the timed work, kept so the JIT cannot discard it
+
+    private BenchmarkSupport() {}
+
+    interface Task<E extends Exception> {
+        long run() throws E;
+    }
+
+    /** Runs the task the given number of times and returns the fastest run in nanoseconds; the first runs double as warm-up. */
+    static <E extends Exception> long bestOf(int runs, Task<E> task) throws E {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            sink += task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    static void printMachine() {
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors()
+                + ", fork-join parallelism: " + ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /** A car of a random brand named "Model &lt;index&gt;", so every index gives a distinct car. */
+    static CarModel car(Random random, int index) {
+        return new CarModel(BRANDS[random.nextInt(BRANDS.length)], "Model " + index,
+                500_000 + random.nextInt(50_000_000), random.nextInt(10), null);
+    }
+
+    /** Seeded sales a second to two minutes apart over 8 brands and 200 models per brand. */
+    static final class SaleGenerator {
+        private final Random random = new Random(42);
+        private LocalDateTime time = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+        SaleModel next() {
+            time = time.plusSeconds(1 + random.nextInt(120));
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            return new SaleModel(time, brand, brand + " Model " + random.nextInt(200), 500_000 + random.nextInt(50_000_000));
+        }
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
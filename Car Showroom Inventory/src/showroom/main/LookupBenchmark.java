@@ -0,0 +1,84 @@
+package showroom.main;
+
+import showroom.index.CarKeyIndex;
+import showroom.model.CarModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Shows that getCarModel's hash index ({@link CarKeyIndex}) keeps lookup cost flat as the inventory
+ * grows. For inventories of 10 to 1,000,000 models it times case-insensitive lookups of random
+ * existing cars (in other letter case) and of missing ones, through the index and through the linear
+ * equalsIgnoreCase scan the index replaced. The scan is skipped above the given size, where it would
+ * take minutes.
+ *
+ * Usage: java -cp &lt;classes&gt; showroom.main.LookupBenchmark [maxModels] [maxScannedModels]
+ */
+public class LookupBenchmark {
+    private static final int LOOKUPS = 1 << 20;
+    private static final long SCAN_BUDGET = 200_000_000L; // Car comparisons per scan measurement
+
+    public static void main(String[] args) {
+        int maxModels = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxScanned = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        Random random = new Random(42);
+        List<CarModel> cars = new ArrayList<>(maxModels);
+        for (int i = 0; i < maxModels; i++) {
+            cars.add(BenchmarkSupport.car(random, i));
+        }
+
+        BenchmarkSupport.printMachine();
+        System.out.printf("%10s %14s %14s%n", "models", "index (ns)", "scan (ns)");
+        for (int size = 10; size <= maxModels; size *= 10) {
+            List<CarModel> inventory = cars.subList(0, size);
+            CarKeyIndex index = new CarKeyIndex(inventory);
+
+            // Three in four lookups hit a car, spelled in upper case; the rest miss
+            String[] brands = new String[LOOKUPS];
+            String[] models = new String[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                CarModel car = inventory.get(random.nextInt(size));
+                boolean hit = random.nextInt(4) != 0;
+                brands[i] = car.getBrand().toUpperCase(Locale.ROOT);
+                models[i] = hit ? car.getModel().toUpperCase(Locale.ROOT) : car.getModel() + " X";
+            }
+
+            long indexNanos = time(LOOKUPS, i -> index.get(brands[i], models[i]) != null);
+            String scan = "-";
+            if (size <= maxScanned) {
+                int scans = (int) Math.max(1, Math.min(LOOKUPS, SCAN_BUDGET / size));
+                scan = String.format("%.1f", (double) time(scans, i -> scan(inventory, brands[i], models[i]) != null) / scans);
+            }
+            System.out.printf("%10d %14.1f %14s%n", size, (double) indexNanos / LOOKUPS, scan);
+        }
+    }
+
+    private interface Lookup {
+        boolean found(int i);
+    }
+
+    // Best of several rounds, in nanoseconds for all lookups
+    private static long time(int lookups, Lookup lookup) {
+        return BenchmarkSupport.bestOf(5, () -> {
+            long found = 0;
+            for (int i = 0; i < lookups; i++) {
+                if (lookup.found(i)) found++;
+            }
+            return found;
+        });
+    }
+
+    // The linear lookup getCarModel used before the index
+    private static CarModel scan(List<CarModel> inventory, String brand, String model) {
+        for (CarModel car : inventory) {
+            if (car.getBrand().equalsIgnoreCase(brand) && car.getModel().equalsIgnoreCase(model)) {
+                return car;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package showroom.main;
+
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap the in-memory sales log takes per sale in three layouts: objects as the original
+ * loader built them (each sale with its own LocalDateTime and its own copies of the brand and model
+ * strings), a List of today's SaleModel (names shared through the NameDictionary) and the columnar
+ * {@link SalesColumns}. Each layout is built on its own from the same synthetic sales and the heap in
+ * use is compared after a full collection before and after.
+ *
+ * Run with a heap large enough for the object list, e.g. -Xmx2g for the default size.
+ * Usage: java -cp &lt;classes&gt; showroom.main.MemoryFootprint [sales]
+ */
+public class MemoryFootprint {
+    private static Object retained; // Keeps the measured log reachable until the heap is read
+
+    // The sale object of the original loader
+    private static final class LegacySale {
+        final LocalDateTime timestamp;
+        final String brand;
+        final String model;
+        final double salePrice;
+
+        LegacySale(LocalDateTime timestamp, String brand, String model, double salePrice) {
+            this.timestamp = timestamp;
+            this.brand = brand;
+            this.model = model;
+            this.salePrice = salePrice;
+        }
+    }
+
+    public static void main(String[] args) {
+        int salesCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long legacy = measure(() -> {
+            List<LegacySale> sales = new ArrayList<>(salesCount);
+            BenchmarkSupport.SaleGenerator generator = new BenchmarkSupport.SaleGenerator();
+            for (int i = 0; i < salesCount; i++) {
+                SaleModel sale = generator.next();
+                // The old loader parsed a fresh copy of both names, characters included, from every line
+                sales.add(new LegacySale(sale.getTimestamp(), String.valueOf(sale.getBrand().toCharArray()),
+                        String.valueOf(sale.getModel().toCharArray()), sale.getSalePrice()));
+            }
+            return sales;
+        });
+        long objects = measure(() -> {
+            List<SaleModel> sales = new ArrayList<>(salesCount);
+            BenchmarkSupport.SaleGenerator generator = new BenchmarkSupport.SaleGenerator();
+            for (int i = 0; i < salesCount; i++) {
+                sales.add(generator.next());
+            }
+            return sales;
+        });
+        long columns = measure(() -> {
+            SalesColumns sales = new SalesColumns();
+            BenchmarkSupport.SaleGenerator generator = new BenchmarkSupport.SaleGenerator();
+            for (int i = 0; i < salesCount; i++) {
+                sales.add(generator.next());
+            }
+            return sales;
+        });
+
+        System.out.printf("%d sales%n", salesCount);
+        System.out.printf("%-22s %10s %12s%n", "layout", "MB", "bytes/sale");
+        System.out.printf("%-22s %10.1f %12.1f%n", "original objects", legacy / 1e6, (double) legacy / salesCount);
+        System.out.printf("%-22s %10.1f %12.1f%n", "List<SaleModel>", objects / 1e6, (double) objects / salesCount);
+        System.out.printf("%-22s %10.1f %12.1f%n", "SalesColumns", columns / 1e6, (double) columns / salesCount);
+    }
+
+    private interface Builder {
+        Object build();
+    }
+
+    // Heap in use after building, minus before, both after full collections
+    private static long measure(Builder builder) {
+        long before = usedHeap();
+        retained = builder.build();
+        long after = usedHeap();
+        retained = null;
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
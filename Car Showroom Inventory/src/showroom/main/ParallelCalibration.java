@@ -0,0 +1,62 @@
+package showroom.main;
+
+import showroom.model.CarModel;
+import showroom.query.ParallelScan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures where the parallel scan path starts to pay off on this machine.
+ * Runs a typical filter (price band + text) and a sum over synthetic inventories of growing size,
+ * once forced sequential and once forced parallel, and prints the smallest size from which the
+ * parallel path is faster. Pass that value to the application as -Dshowroom.parallel.threshold.
+ *
+ * Usage: java -cp &lt;classes&gt; showroom.main.ParallelCalibration [maxRows]
+ */
+public class ParallelCalibration {
+    public static void main(String[] args) {
+        int maxRows = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        List<CarModel> cars = new ArrayList<>(maxRows);
+        Random random = new Random(42);
+        for (int i = 0; i < maxRows; i++) {
+            cars.add(BenchmarkSupport.car(random, i));
+        }
+
+        BenchmarkSupport.printMachine();
+        if (ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            System.out.println("Single-core pool: the parallel path is never taken here, so there is nothing to calibrate.");
+            return;
+        }
+        // Warm up both paths so the first sizes are not measured in the interpreter
+        time(cars, Integer.MAX_VALUE);
+        time(cars, 0);
+
+        System.out.printf("%10s %12s %12s %8s%n", "rows", "seq (us)", "par (us)", "speedup");
+        int breakEven = -1;
+        for (int rows = 1024; rows <= maxRows; rows *= 2) {
+            List<CarModel> slice = cars.subList(0, rows);
+            long seq = time(slice, Integer.MAX_VALUE);
+            long par = time(slice, 0);
+            System.out.printf("%10d %12.1f %12.1f %8.2f%n", rows, seq / 1e3, par / 1e3, (double) seq / par);
+            if (par < seq) {
+                if (breakEven < 0) breakEven = rows;
+            } else {
+                breakEven = -1; // Must stay faster for every larger size
+            }
+        }
+        System.out.println(breakEven > 0
+                ? "Suggested: -Dshowroom.parallel.threshold=" + breakEven
+                : "The parallel path never won; keep the sequential path (-Dshowroom.parallel.threshold=" + Integer.MAX_VALUE + ")");
+    }
+
+    // Best of several runs, in nanoseconds, with the given threshold
+    private static long time(List<CarModel> cars, int threshold) {
+        ParallelScan.setThreshold(threshold);
+        return BenchmarkSupport.bestOf(15, () -> ParallelScan.filter(cars, c -> c.getPrice() >= 1_000_000
+                && c.getPrice() <= 20_000_000 && c.getSearchBrand().contains("o")).size()
+                + (long) ParallelScan.sum(cars, c -> c.getPrice() * c.getQuantity()));
+    }
+}
@@ -0,0 +1,99 @@
+package showroom.main;
+
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+import showroom.persistence.BinarySnapshot;
+import showroom.persistence.SalesLogLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how long startup takes to read the sales log on this machine.
+ * Writes a synthetic sales log of the given size to a temporary folder and loads it four ways:
+ * line by line through a BufferedReader (the original loader), with {@link SalesLogLoader} on a
+ * single thread, with {@link SalesLogLoader} on the common fork-join pool, and from a
+ * {@link BinarySnapshot} holding the same sales.
+ *
+ * Usage: java -cp &lt;classes&gt; showroom.main.StartupBenchmark [sales]
+ */
+public class StartupBenchmark {
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int salesCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path dir = Files.createTempDirectory("showroom-startup");
+        try {
+            Path log = dir.resolve("sales_log.csv");
+            Path snapshot = dir.resolve("showroom.snapshot");
+            writeSalesLog(log, salesCount);
+            writeSnapshot(snapshot, log);
+            BenchmarkSupport.printMachine();
+            System.out.printf("%d sales, %.1f MB CSV, %.1f MB snapshot%n", salesCount,
+                    Files.size(log) / 1e6, Files.size(snapshot) / 1e6);
+
+            ForkJoinPool single = new ForkJoinPool(1);
+            System.out.printf("%-28s %10s %10s%n", "loader", "ms", "sales");
+            report("BufferedReader lines", () -> readLines(log));
+            report("SalesLogLoader, 1 thread", () -> SalesLogLoader.load(log, 0, single));
+            report("SalesLogLoader, common pool", () -> SalesLogLoader.load(log));
+            report("Binary snapshot", () -> {
+                BinarySnapshot read = BinarySnapshot.read(snapshot);
+                return read != null ? read.getSales() : List.of();
+            });
+            single.shutdown();
+        } finally {
+            BenchmarkSupport.deleteRecursively(dir);
+        }
+    }
+
+    private interface Loader {
+        List<SaleModel> load() throws IOException;
+    }
+
+    // Prints the best of several runs after one warm-up run
+    private static void report(String name, Loader loader) throws IOException {
+        int count = loader.load().size();
+        long best = BenchmarkSupport.bestOf(RUNS, () -> loader.load().size());
+        System.out.printf("%-28s %10.1f %10d%n", name, best / 1e6, count);
+    }
+
+    private static List<SaleModel> readLines(Path log) throws IOException {
+        List<SaleModel> sales = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(log)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                SaleModel sale = SaleModel.fromCSV(line);
+                if (sale != null) sales.add(sale);
+            }
+        }
+        return sales;
+    }
+
+    private static void writeSalesLog(Path log, int salesCount) throws IOException {
+        BenchmarkSupport.SaleGenerator sales = new BenchmarkSupport.SaleGenerator();
+        try (BufferedWriter bw = Files.newBufferedWriter(log)) {
+            for (int i = 0; i < salesCount; i++) {
+                bw.write(sales.next().toString());
+                bw.newLine();
+            }
+        }
+    }
+
+    private static void writeSnapshot(Path snapshot, Path log) throws IOException {
+        List<SaleModel> sales = SalesColumns.of(SalesLogLoader.load(log));
+        long length = Files.size(log);
+        BinarySnapshot content = new BinarySnapshot(0, length, BinarySnapshot.tailCrc(log, length), new ArrayList<>(), sales);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(snapshot), 1 << 16)) {
+            content.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package showroom.main;
+
+import showroom.model.CsvScanner;
+import showroom.model.FastTimestamp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Compares the sales log timestamp codec ({@link FastTimestamp}) with the DateTimeFormatter path it
+ * replaced. Parses and formats the same random "yyyy-MM-dd HH:mm:ss" timestamps both ways, checks that
+ * they agree, and prints nanoseconds per timestamp for each.
+ *
+ * Usage: java -cp &lt;classes&gt; showroom.main.TimestampBenchmark [timestamps]
+ */
+public class TimestampBenchmark {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        long from = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long span = LocalDateTime.of(2040, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) - from;
+
+        long[] seconds = new long[count];
+        LocalDateTime[] times = new LocalDateTime[count];
+        String[] texts = new String[count];
+        ByteBuffer bytes = ByteBuffer.allocate(count * (FastTimestamp.LENGTH + 1));
+        for (int i = 0; i < count; i++) {
+            seconds[i] = from + (long) (random.nextDouble() * span);
+            times[i] = LocalDateTime.ofEpochSecond(seconds[i], 0, ZoneOffset.UTC);
+            texts[i] = FORMATTER.format(times[i]);
+            bytes.put(texts[i].getBytes(StandardCharsets.US_ASCII)).put((byte) '\n');
+        }
+
+        // Both codecs must agree before their speed means anything
+        CsvScanner scanner = new CsvScanner();
+        for (int i = 0; i < count; i++) {
+            int start = i * (FastTimestamp.LENGTH + 1);
+            scanner.reset(bytes, start, start + FastTimestamp.LENGTH).next();
+            if (FastTimestamp.parse(texts[i]) != seconds[i] || scanner.timestampValue() != seconds[i]
+                    || !FastTimestamp.format(times[i]).equals(texts[i])) {
+                System.err.println("Codecs disagree on " + texts[i]);
+                return;
+            }
+        }
+        BenchmarkSupport.printMachine();
+        System.out.println(count + " timestamps, all parsed and formatted identically by both codecs.");
+
+        System.out.printf("%-36s %10s%n", "operation", "ns/op");
+        report("parse: LocalDateTime.parse", count,
+                i -> LocalDateTime.parse(texts[i], FORMATTER).toEpochSecond(ZoneOffset.UTC));
+        report("parse: FastTimestamp (chars)", count, i -> FastTimestamp.parse(texts[i]));
+        report("parse: CsvScanner (bytes)", count, i -> {
+            int start = i * (FastTimestamp.LENGTH + 1);
+            scanner.reset(bytes, start, start + FastTimestamp.LENGTH).next();
+            return scanner.timestampValue();
+        });
+        report("format: DateTimeFormatter", count, i -> FORMATTER.format(times[i]).length());
+        report("format: FastTimestamp (LocalDateTime)", count, i -> FastTimestamp.format(times[i]).length());
+        report("format: FastTimestamp (epoch seconds)", count, i -> FastTimestamp.format(seconds[i]).length());
+        report("convert: toLocalDateTime", count, i -> FastTimestamp.toLocalDateTime(seconds[i]).getDayOfMonth());
+    }
+
+    // Best of several rounds over every timestamp
+    private static void report(String name, int count, IntToLongFunction op) {
+        long best = BenchmarkSupport.bestOf(ROUNDS, () -> {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += op.applyAsLong(i);
+            }
+            return sum;
+        });
+        System.out.printf("%-36s %10.1f%n", name, (double) best / count);
+    }
+}
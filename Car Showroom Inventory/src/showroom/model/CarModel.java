@@ -10,12 +10,39 @@ public class CarModel {
     private int quantity;
     private String imagePath; // Path to the local image file
 
+    // Normalized keys derived from brand/model; recomputed by the setters so queries never rebuild them
+    private String searchBrand;  // Lowercased, for the search box
+    private String searchModel;
+    private String foldedBrand;  // Case-folded, for case-insensitive brand lookups
+    private String lookupKey;    // Case-folded brand + model
+    private String sortKey;      // Orders by brand, then model, ignoring case
+
     public CarModel(String brand, String model, double price, int quantity, String imagePath) {
-        this.brand = brand;
-        this.model = model;
+        this.brand = NameDictionary.intern(singleLine(brand));
+        this.model = NameDictionary.intern(singleLine(model));
         this.price = price;
         this.quantity = quantity;
-        this.imagePath = imagePath;
+        this.imagePath = singleLine(imagePath);
+        refreshKeys();
+    }
+
+    /**
+     * The value with each line break replaced by a space (null stays null). The inventory file, the
+     * journal and the sales log are all read line by line, so a name or path must stay on one line.
+     */
+    public static String singleLine(String value) {
+        if (value == null || (value.indexOf('\n') < 0 && value.indexOf('\r') < 0)) return value;
+        return value.replace("\r\n", " ").replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private void refreshKeys() {
+        String b = brand != null ? brand : "";
+        String m = model != null ? model : "";
+        searchBrand = SearchKeys.lower(b);
+        searchModel = SearchKeys.lower(m);
+        foldedBrand = SearchKeys.fold(b);
+        lookupKey = SearchKeys.lookupKey(b, m);
+        sortKey = SearchKeys.sortKey(b, m);
     }
 
     // Getters
@@ -24,41 +51,59 @@ public class CarModel {
     public double getPrice() { return price; }
     public int getQuantity() { return quantity; }
     public String getImagePath() { return imagePath; }
+    public String getSearchBrand() { return searchBrand; }
+    public String getSearchModel() { return searchModel; }
+    public String getFoldedBrand() { return foldedBrand; }
+    public String getLookupKey() { return lookupKey; }
+    public String getSortKey() { return sortKey; }
 
     // Setters
-    public void setBrand(String brand) { this.brand = brand; }
-    public void setModel(String model) { this.model = model; }
+    public void setBrand(String brand) {
+        this.brand = NameDictionary.intern(singleLine(brand));
+        refreshKeys();
+    }
+    public void setModel(String model) {
+        this.model = NameDictionary.intern(singleLine(model));
+        refreshKeys();
+    }
     public void setPrice(double price) { this.price = price; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
-    public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+    public void setImagePath(String imagePath) { this.imagePath = singleLine(imagePath); }
 
     /**
      * Converts the CarModel object to a CSV string for saving.
+     * Brand, model and image path are quoted when they contain commas or quotes.
      */
     @Override
     public String toString() {
-        return brand + "," + model + "," + price + "," + quantity + "," + imagePath;
+        return CsvScanner.quote(brand) + "," + CsvScanner.quote(model) + "," + price + "," + quantity + "," + CsvScanner.quote(String.valueOf(imagePath));
     }
 
+    // One scanner per thread so the String entry point does not allocate one per line
+    private static final ThreadLocal<CsvScanner> SCANNER = ThreadLocal.withInitial(CsvScanner::new);
+
     /**
      * Creates a CarModel object from a single CSV line.
      */
     public static CarModel fromCSV(String line) {
-        try {
-            // Split only on commas that are NOT followed by a space
-            String[] parts = line.split(",", 5);
-            if (parts.length < 5) return null;
-            
-            String brand = parts[0].trim();
-            String model = parts[1].trim();
-            double price = Double.parseDouble(parts[2].trim());
-            int quantity = Integer.parseInt(parts[3].trim());
-            String imagePath = parts[4].trim();
+        return fromCSV(SCANNER.get().reset(line));
+    }
+
+    /**
+     * Reads the next five fields of the scanner as a CarModel; the image path may run to the end of the line.
+     * Returns null (after logging) if the fields are missing or malformed.
+     */
+    public static CarModel fromCSV(CsvScanner scanner) {
+        String brand = scanner.next() ? scanner.name() : null;
+        String model = scanner.next() ? scanner.name() : null;
+        double price = scanner.next() ? scanner.doubleValue() : 0;
+        int quantity = scanner.next() ? scanner.intValue() : 0;
+        String imagePath = scanner.nextRest() ? scanner.text() : null;
 
-            return new CarModel(brand, model, price, quantity, imagePath);
-        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-            System.err.println("Error parsing CSV line for CarModel: " + line + ". Error: " + e.getMessage());
+        if (scanner.failed()) {
+            System.err.println("Error parsing CSV line for CarModel: " + scanner.lineText() + ". Error: " + scanner.error());
             return null;
         }
+        return new CarModel(brand, model, price, quantity, imagePath);
     }
-}
\ No newline at end of file
+}
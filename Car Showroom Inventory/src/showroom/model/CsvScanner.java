@@ -0,0 +1,432 @@
+package showroom.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable, allocation-free field scanner for the showroom CSV formats.
+ * Works in place over a CharSequence or a (possibly memory-mapped) UTF-8 ByteBuffer: fields are
+ * tracked as index ranges, numbers are parsed straight from the source, and a String is only
+ * created when {@link #text()} is called. Quoted fields ("a, b" with "" as an escaped quote)
+ * are supported. Malformed input is reported through {@link #failed()} / {@link #error()}
+ * instead of exceptions.
+ */
+public final class CsvScanner {
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private CharSequence chars;
+    private ByteBuffer bytes;
+    private int lineStart;
+    private int lineEnd;
+    private int pos;
+
+    // Current field, as a half-open range into the source
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldQuoted;
+    private boolean fieldHasEscapes;
+
+    private String error;
+    private byte[] scratch = new byte[64];
+
+    // Recently seen names (raw field bytes -> canonical String) for name(), direct-mapped by hash
+    private static final int NAME_CACHE_SIZE = 512;
+    private final byte[][] cachedNameBytes = new byte[NAME_CACHE_SIZE][];
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE];
+
+    public CsvScanner reset(CharSequence line) {
+        return reset(line, 0, line.length());
+    }
+
+    public CsvScanner reset(CharSequence line, int start, int end) {
+        this.chars = line;
+        this.bytes = null;
+        return begin(start, end);
+    }
+
+    /**
+     * Scans bytes [start, end) of a UTF-8 buffer using absolute indexing; the buffer position is not touched.
+     */
+    public CsvScanner reset(ByteBuffer buffer, int start, int end) {
+        this.chars = null;
+        this.bytes = buffer;
+        return begin(start, end);
+    }
+
+    private CsvScanner begin(int start, int end) {
+        // Tolerate Windows line endings
+        if (end > start && at(end - 1) == '\r') end--;
+        this.lineStart = start;
+        this.lineEnd = end;
+        this.pos = start;
+        this.fieldStart = this.fieldEnd = start;
+        this.error = null;
+        return this;
+    }
+
+    private char at(int i) {
+        return chars != null ? chars.charAt(i) : (char) (bytes.get(i) & 0xFF);
+    }
+
+    /**
+     * True once the whole line has been consumed.
+     */
+    public boolean atEnd() {
+        return pos > lineEnd;
+    }
+
+    public boolean failed() { return error != null; }
+
+    public String error() { return error; }
+
+    private boolean fail(String message) {
+        if (error == null) error = message;
+        return false;
+    }
+
+    /**
+     * Advances to the next comma-separated field.
+     *
+     * @return false if there are no more fields or the field is malformed
+     */
+    public boolean next() {
+        if (error != null) return false;
+        if (pos > lineEnd) return fail("missing field");
+
+        int i = pos;
+        while (i < lineEnd && isBlank(at(i))) i++;
+
+        if (i < lineEnd && at(i) == '"') {
+            fieldQuoted = true;
+            fieldHasEscapes = false;
+            int start = i + 1;
+            int j = start;
+            while (true) {
+                if (j >= lineEnd) return fail("unterminated quoted field");
+                char c = at(j);
+                if (c == '"') {
+                    if (j + 1 < lineEnd && at(j + 1) == '"') {
+                        fieldHasEscapes = true;
+                        j += 2;
+                        continue;
+                    }
+                    break;
+                }
+                j++;
+            }
+            fieldStart = start;
+            fieldEnd = j;
+            j++;
+            while (j < lineEnd && isBlank(at(j))) j++;
+            if (j < lineEnd && at(j) != ',') return fail("unexpected character after quoted field");
+            pos = j + 1;
+            return true;
+        }
+
+        fieldQuoted = false;
+        fieldHasEscapes = false;
+        int j = i;
+        while (j < lineEnd && at(j) != ',') j++;
+        int end = j;
+        while (end > i && isBlank(at(end - 1))) end--;
+        fieldStart = i;
+        fieldEnd = end;
+        pos = j + 1;
+        return true;
+    }
+
+    /**
+     * Like {@link #next()}, but an unquoted field runs to the end of the line, commas included.
+     * Used for trailing free-text columns such as image paths written by older versions.
+     */
+    public boolean nextRest() {
+        if (error != null) return false;
+        int i = pos;
+        while (i < lineEnd && isBlank(at(i))) i++;
+        if (i < lineEnd && at(i) == '"') return next();
+        if (pos > lineEnd) return fail("missing field");
+
+        int end = lineEnd;
+        while (end > i && isBlank(at(end - 1))) end--;
+        fieldQuoted = false;
+        fieldHasEscapes = false;
+        fieldStart = i;
+        fieldEnd = end;
+        pos = lineEnd + 1;
+        return true;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    public boolean isEmptyField() {
+        return fieldEnd == fieldStart;
+    }
+
+    public int fieldStart() { return fieldStart; }
+
+    public int fieldLength() { return fieldEnd - fieldStart; }
+
+    /**
+     * Character (or byte, for byte sources) at the given offset inside the current field.
+     */
+    public char fieldChar(int offset) {
+        return at(fieldStart + offset);
+    }
+
+    // --- Field conversion ---
+
+    /**
+     * The current field as a new String (see {@link #name()} for brand and model names).
+     */
+    public String text() {
+        if (chars != null) {
+            String s = chars.subSequence(fieldStart, fieldEnd).toString();
+            return fieldHasEscapes ? s.replace("\"\"", "\"") : s;
+        }
+        int len = fieldEnd - fieldStart;
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+        int n = 0;
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            byte b = bytes.get(i);
+            scratch[n++] = b;
+            if (b == '"' && fieldHasEscapes && i + 1 < fieldEnd && bytes.get(i + 1) == '"') i++;
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The current field as a brand or model name: the {@link NameDictionary} instance, which for a
+     * byte source is found without creating a String when the name was recently seen on this scanner.
+     */
+    public String name() {
+        if (chars != null || fieldHasEscapes) return NameDictionary.intern(text());
+        int len = fieldEnd - fieldStart;
+        int hash = 1;
+        for (int i = fieldStart; i < fieldEnd; i++) hash = 31 * hash + bytes.get(i);
+        int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        byte[] cached = cachedNameBytes[slot];
+        if (cached != null && cached.length == len && sameBytes(cached)) return cachedNames[slot];
+
+        byte[] raw = new byte[len];
+        for (int i = 0; i < len; i++) raw[i] = bytes.get(fieldStart + i);
+        String name = NameDictionary.intern(new String(raw, StandardCharsets.UTF_8));
+        cachedNameBytes[slot] = raw;
+        cachedNames[slot] = name;
+        return name;
+    }
+
+    private boolean sameBytes(byte[] cached) {
+        for (int i = 0; i < cached.length; i++) {
+            if (cached[i] != bytes.get(fieldStart + i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the current field as an int. On malformed input returns 0 and marks the scanner failed.
+     */
+    public int intValue() {
+        long v = longValue();
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            fail("integer out of range");
+            return 0;
+        }
+        return (int) v;
+    }
+
+    /**
+     * Parses the current field as a long. On malformed input returns 0 and marks the scanner failed.
+     */
+    public long longValue() {
+        int i = fieldStart;
+        int end = fieldEnd;
+        if (i == end) {
+            fail("empty number");
+            return 0;
+        }
+        boolean negative = false;
+        char c = at(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        if (i == end) {
+            fail("malformed number");
+            return 0;
+        }
+        long v = 0;
+        for (; i < end; i++) {
+            int d = at(i) - '0';
+            if (d < 0 || d > 9) {
+                fail("malformed number");
+                return 0;
+            }
+            if (v > (Long.MAX_VALUE - d) / 10) {
+                fail("number out of range");
+                return 0;
+            }
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * Parses the current field as a double, accepting the forms produced by Double.toString
+     * (e.g. "2.0E7", "1250000.5"). Exact decimal values take an in-place fast path; only
+     * mantissas beyond 2^53 or large exponents fall back to Double.parseDouble.
+     * On malformed input returns NaN and marks the scanner failed.
+     */
+    public double doubleValue() {
+        int i = fieldStart;
+        int end = fieldEnd;
+        if (i == end) {
+            fail("empty number");
+            return Double.NaN;
+        }
+        boolean negative = false;
+        char c = at(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;       // Digits after the decimal point
+        boolean overflow = false;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            c = at(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) scale++;
+                } else {
+                    overflow = true;
+                    if (!seenDot) scale--;
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            fail("malformed number");
+            return Double.NaN;
+        }
+
+        int exponent = 0;
+        if (i < end && (at(i) == 'e' || at(i) == 'E')) {
+            i++;
+            boolean expNegative = false;
+            if (i < end && (at(i) == '-' || at(i) == '+')) {
+                expNegative = at(i) == '-';
+                i++;
+            }
+            int expDigits = 0;
+            for (; i < end; i++) {
+                int d = at(i) - '0';
+                if (d < 0 || d > 9) break;
+                if (exponent < 10000) exponent = exponent * 10 + d;
+                expDigits++;
+            }
+            if (expDigits == 0) {
+                fail("malformed exponent");
+                return Double.NaN;
+            }
+            if (expNegative) exponent = -exponent;
+        }
+        if (i != end) {
+            fail("malformed number");
+            return Double.NaN;
+        }
+
+        int e10 = exponent - scale;
+        double value;
+        if (!overflow && e10 >= -22 && e10 <= 22) {
+            value = e10 >= 0 ? mantissa * POW10[e10] : mantissa / POW10[-e10];
+        } else {
+            // Rare: not exactly representable on the fast path
+            value = Double.parseDouble(chars != null
+                    ? chars.subSequence(fieldStart, fieldEnd).toString()
+                    : text());
+            return value;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the current field as a "yyyy-MM-dd HH:mm:ss" timestamp into local epoch seconds
+     * (see {@link FastTimestamp}). On malformed input returns {@link FastTimestamp#INVALID}
+     * and marks the scanner failed.
+     */
+    public long timestampValue() {
+        if (fieldEnd - fieldStart != FastTimestamp.LENGTH) {
+            fail("malformed timestamp");
+            return FastTimestamp.INVALID;
+        }
+        for (int i = 0; i < FastTimestamp.LENGTH; i++) {
+            if (!FastTimestamp.isValidChar(i, at(fieldStart + i))) {
+                fail("malformed timestamp");
+                return FastTimestamp.INVALID;
+            }
+        }
+        long epochSecond = FastTimestamp.toEpochSecond(
+                digits(0, 4), digits(5, 2), digits(8, 2), digits(11, 2), digits(14, 2), digits(17, 2));
+        if (epochSecond == FastTimestamp.INVALID) fail("timestamp field out of range");
+        return epochSecond;
+    }
+
+    private int digits(int offset, int count) {
+        int v = 0;
+        for (int i = fieldStart + offset; i < fieldStart + offset + count; i++) {
+            v = v * 10 + (at(i) - '0');
+        }
+        return v;
+    }
+
+    /**
+     * The whole current line, for error messages.
+     */
+    public String lineText() {
+        int savedStart = fieldStart, savedEnd = fieldEnd;
+        boolean savedEscapes = fieldHasEscapes;
+        fieldStart = lineStart;
+        fieldEnd = lineEnd;
+        fieldHasEscapes = false;
+        String s = text();
+        fieldStart = savedStart;
+        fieldEnd = savedEnd;
+        fieldHasEscapes = savedEscapes;
+        return s;
+    }
+
+    // --- Writing ---
+
+    /**
+     * Quotes a value for CSV output if it contains a comma, quote, line break or edge whitespace.
+     */
+    public static String quote(String value) {
+        if (value == null) return "";
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes && !value.isEmpty() && (isBlank(value.charAt(0)) || isBlank(value.charAt(value.length() - 1)))) {
+            needsQuotes = true;
+        }
+        return needsQuotes ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+}
@@ -0,0 +1,135 @@
+package showroom.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Hand-rolled parser and formatter for the fixed sales log timestamp layout "yyyy-MM-dd HH:mm:ss".
+ * Works directly on characters, validates every field range, and converts to and from
+ * "local epoch seconds" (the wall-clock time read as if it were UTC), which is what the
+ * sales log stores. Replaces DateTimeFormatter on the load and save paths.
+ */
+public final class FastTimestamp {
+    public static final int LENGTH = 19;
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private FastTimestamp() {}
+
+    /**
+     * Parses "yyyy-MM-dd HH:mm:ss" into local epoch seconds, or returns {@link #INVALID}.
+     */
+    public static long parse(CharSequence text) {
+        if (text.length() != LENGTH) return INVALID;
+        for (int i = 0; i < LENGTH; i++) {
+            if (!isValidChar(i, text.charAt(i))) return INVALID;
+        }
+        return toEpochSecond(
+                digits(text, 0, 4), digits(text, 5, 2), digits(text, 8, 2),
+                digits(text, 11, 2), digits(text, 14, 2), digits(text, 17, 2));
+    }
+
+    /**
+     * True if the character is allowed at this position of the layout (digit or the fixed separator).
+     */
+    static boolean isValidChar(int index, char c) {
+        switch (index) {
+            case 4: case 7: return c == '-';
+            case 10: return c == ' ';
+            case 13: case 16: return c == ':';
+            default: return c >= '0' && c <= '9';
+        }
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int v = 0;
+        for (int i = start; i < start + count; i++) {
+            v = v * 10 + (text.charAt(i) - '0');
+        }
+        return v;
+    }
+
+    /**
+     * Validates the fields and converts them to local epoch seconds, or returns {@link #INVALID}.
+     */
+    public static long toEpochSecond(int year, int month, int day, int hour, int minute, int second) {
+        if (month < 1 || month > 12) return INVALID;
+        if (day < 1 || day > daysInMonth(year, month)) return INVALID;
+        if (hour > 23 || minute > 59 || second > 59 || hour < 0 || minute < 0 || second < 0) return INVALID;
+        return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2: return isLeapYear(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's algorithm)
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+
+    // --- Formatting ---
+
+    public static String format(LocalDateTime timestamp) {
+        return format(timestamp.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    public static String format(long epochSecond) {
+        return appendTo(new StringBuilder(LENGTH), epochSecond).toString();
+    }
+
+    /**
+     * Appends the local epoch second as "yyyy-MM-dd HH:mm:ss" without intermediate objects.
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long epochSecond) {
+        long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secOfDay = Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        // Inverse of daysFromCivil
+        long z = days + 719_468;
+        long era = (z >= 0 ? z : z - 146_096) / 146_097;
+        int doe = (int) (z - era * 146_097);
+        int yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        pad(sb, year, 4).append('-');
+        pad(sb, month, 2).append('-');
+        pad(sb, day, 2).append(' ');
+        pad(sb, secOfDay / 3600, 2).append(':');
+        pad(sb, (secOfDay / 60) % 60, 2).append(':');
+        return pad(sb, secOfDay % 60, 2);
+    }
+
+    private static StringBuilder pad(StringBuilder sb, long value, int width) {
+        long limit = 1;
+        for (int i = 1; i < width; i++) limit *= 10;
+        while (limit > 1 && value < limit) {
+            sb.append('0');
+            limit /= 10;
+        }
+        return sb.append(value);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,93 @@
+package showroom.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of brand and model names. {@link #intern} hands out one canonical String
+ * per distinct name, so the thousands of cars and sales that name the same brand share a single
+ * instance instead of each holding the copy its CSV line was parsed into. {@link #pairId} numbers
+ * the distinct (brand, model) pairs 0, 1, 2, ... so sales can be stored and grouped by an int, and
+ * {@link #name} gives the "Brand Model" label of a pair without concatenating per sale.
+ *
+ * Entries are never removed: the dictionary holds every name seen since startup, which is bounded
+ * by the number of distinct brands and models. Safe for the parallel CSV loaders.
+ */
+public final class NameDictionary {
+
+    // One distinct (brand, model) pair
+    private static final class Pair {
+        final String brand;
+        final String model;
+        final String name;
+
+        Pair(String brand, String model) {
+            this.brand = brand;
+            this.model = model;
+            this.name = brand + " " + model;
+        }
+    }
+
+    private static final ConcurrentHashMap<String, String> NAMES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Integer>> PAIR_IDS = new ConcurrentHashMap<>();
+    // Pairs by id; replaced (not grown in place) under the lock, so readers never see a partial array
+    private static volatile Pair[] pairs = new Pair[256];
+    private static int pairCount; // Guarded by NameDictionary.class
+
+    private NameDictionary() {
+    }
+
+    /**
+     * The canonical instance of the name (null stays null).
+     */
+    public static String intern(String name) {
+        if (name == null) return null;
+        String canonical = NAMES.putIfAbsent(name, name);
+        return canonical != null ? canonical : name;
+    }
+
+    /**
+     * Id of the (brand, model) pair, assigning the next one on first sight. Names are case-sensitive
+     * like the sales log; null is treated as the empty name.
+     */
+    public static int pairId(String brand, String model) {
+        String b = brand != null ? brand : "";
+        String m = model != null ? model : "";
+        ConcurrentHashMap<String, Integer> byModel = PAIR_IDS.get(b);
+        if (byModel != null) {
+            Integer id = byModel.get(m);
+            if (id != null) return id;
+        }
+        return assign(b, m);
+    }
+
+    private static synchronized int assign(String brand, String model) {
+        ConcurrentHashMap<String, Integer> byModel = PAIR_IDS.computeIfAbsent(intern(brand), k -> new ConcurrentHashMap<>());
+        Integer id = byModel.get(model);
+        if (id != null) return id; // Assigned by another thread meanwhile
+        Pair[] table = pairs;
+        if (pairCount == table.length) table = Arrays.copyOf(table, pairCount * 2);
+        table[pairCount] = new Pair(intern(brand), intern(model));
+        pairs = table; // Publishes the new entry before its id becomes visible below
+        byModel.put(model, pairCount);
+        return pairCount++;
+    }
+
+    public static String brand(int pairId) { return pairs[pairId].brand; }
+
+    public static String model(int pairId) { return pairs[pairId].model; }
+
+    /**
+     * "Brand Model", the label reports and best-seller rankings use for the pair.
+     */
+    public static String name(int pairId) { return pairs[pairId].name; }
+
+    /**
+     * Number of pairs assigned so far; every id is below it.
+     */
+    public static int size() {
+        synchronized (NameDictionary.class) {
+            return pairCount;
+        }
+    }
+}
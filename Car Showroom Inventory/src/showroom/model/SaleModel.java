@@ -1,23 +1,29 @@
 package showroom.model;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a single sale transaction.
+ * Brand and model are the {@link NameDictionary}'s shared instances, and the sale carries their
+ * pair id so reports can group sales by an int.
  */
 public class SaleModel {
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
     private final LocalDateTime timestamp;
     private final String brand;
     private final String model;
+    private final int pairId;
     private final double salePrice;
 
     public SaleModel(LocalDateTime timestamp, String brand, String model, double salePrice) {
+        this(timestamp, NameDictionary.pairId(brand, model), salePrice);
+    }
+
+    // For sales whose pair id is already known (read back from the columnar log)
+    SaleModel(LocalDateTime timestamp, int pairId, double salePrice) {
         this.timestamp = timestamp;
-        this.brand = brand;
-        this.model = model;
+        this.brand = NameDictionary.brand(pairId);
+        this.model = NameDictionary.model(pairId);
+        this.pairId = pairId;
         this.salePrice = salePrice;
     }
 
@@ -32,31 +38,44 @@ public class SaleModel {
     public String getModel() { return model; }
     public double getSalePrice() { return salePrice; }
 
+    /**
+     * Id of the (brand, model) pair in the {@link NameDictionary}.
+     */
+    public int getPairId() { return pairId; }
+
     /**
      * Converts the SaleModel object to a CSV string for saving.
+     * Brand and model are quoted when they contain commas or quotes.
      */
     @Override
     public String toString() {
-        return timestamp.format(FORMATTER) + "," + brand + "," + model + "," + salePrice;
+        return FastTimestamp.format(timestamp) + "," + CsvScanner.quote(brand) + "," + CsvScanner.quote(model) + "," + salePrice;
     }
 
+    // One scanner per thread so the String entry point does not allocate one per line
+    private static final ThreadLocal<CsvScanner> SCANNER = ThreadLocal.withInitial(CsvScanner::new);
+
     /**
      * Creates a SaleModel object from a single CSV line.
      */
     public static SaleModel fromCSV(String line) {
-        try {
-            String[] parts = line.split(",", 4);
-            if (parts.length < 4) return null;
-
-            LocalDateTime timestamp = LocalDateTime.parse(parts[0].trim(), FORMATTER);
-            String brand = parts[1].trim();
-            String model = parts[2].trim();
-            double salePrice = Double.parseDouble(parts[3].trim());
-
-            return new SaleModel(timestamp, brand, model, salePrice);
-        } catch (Exception e) {
-            System.err.println("Error parsing CSV line for SaleModel: " + line + ". Error: " + e.getMessage());
+        return fromCSV(SCANNER.get().reset(line));
+    }
+
+    /**
+     * Reads the next four fields of the scanner as a SaleModel.
+     * Returns null (after logging) if the fields are missing or malformed.
+     */
+    public static SaleModel fromCSV(CsvScanner scanner) {
+        long epochSecond = scanner.next() ? scanner.timestampValue() : FastTimestamp.INVALID;
+        String brand = scanner.next() ? scanner.name() : null;
+        String model = scanner.next() ? scanner.name() : null;
+        double salePrice = scanner.next() ? scanner.doubleValue() : 0;
+
+        if (scanner.failed()) {
+            System.err.println("Error parsing CSV line for SaleModel: " + scanner.lineText() + ". Error: " + scanner.error());
             return null;
         }
+        return new SaleModel(FastTimestamp.toLocalDateTime(epochSecond), brand, model, salePrice);
     }
-}
\ No newline at end of file
+}
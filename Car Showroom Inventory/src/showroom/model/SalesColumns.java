@@ -0,0 +1,215 @@
+package showroom.model;
+
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The sales log stored column by column: per sale one long of local epoch seconds, one int id of
+ * its (brand, model) pair in the {@link NameDictionary} and one long of the price in paise, about
+ * 20 bytes a sale instead of a SaleModel with its LocalDateTime (100 to 200 bytes). Columns grow in
+ * fixed-size chunks, so appending never copies the existing rows.
+ *
+ * As a List it hands out a new SaleModel for every {@link #get}; reports that scan many sales read
+ * the columns through {@link #getEpochSecond}, {@link #getPairId} and {@link #getSalePrice} instead.
+ * Timestamps keep whole seconds (like the CSV log) and prices whole paise: a price with more than
+ * two decimals is rounded.
+ *
+ * Only appending and removing are supported. Full chunks are never written again, so
+ * {@link #snapshot} can share them with a read-only copy that stays valid while this log grows or
+ * loses its oldest sales.
+ */
+public final class SalesColumns extends AbstractList<SaleModel> implements RandomAccess {
+    private static final int CHUNK_BITS = 13;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 8192 sales, 160 KB a chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final double PAISE = 100;
+
+    private long[][] seconds = new long[4][];
+    private int[][] pairIds = new int[4][];
+    private long[][] paise = new long[4][];
+    private int head; // Rows dropped from the front of the first chunk
+    private int size;
+    private final boolean readOnly;
+
+    public SalesColumns() {
+        this.readOnly = false;
+    }
+
+    // A read-only view of another log's rows [0, size) sharing its chunks
+    private SalesColumns(SalesColumns source) {
+        this.readOnly = true;
+        this.seconds = source.seconds.clone();
+        this.pairIds = source.pairIds.clone();
+        this.paise = source.paise.clone();
+        this.head = source.head;
+        this.size = source.size;
+    }
+
+    /**
+     * The list itself if it already is a SalesColumns, otherwise a columnar copy of it.
+     */
+    public static SalesColumns of(List<SaleModel> sales) {
+        if (sales instanceof SalesColumns) return (SalesColumns) sales;
+        SalesColumns columns = new SalesColumns();
+        columns.addAll(sales);
+        return columns;
+    }
+
+    // --- List ---
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SaleModel get(int index) {
+        int row = row(index);
+        return new SaleModel(FastTimestamp.toLocalDateTime(seconds[row >>> CHUNK_BITS][row & CHUNK_MASK]),
+                pairIds[row >>> CHUNK_BITS][row & CHUNK_MASK], paise[row >>> CHUNK_BITS][row & CHUNK_MASK] / PAISE);
+    }
+
+    /**
+     * Appends a sale; only adding at the end is supported.
+     */
+    @Override
+    public void add(int index, SaleModel sale) {
+        if (index != size) throw new UnsupportedOperationException("Sales can only be appended");
+        append(sale.getTimestamp().toEpochSecond(ZoneOffset.UTC), sale.getPairId(), Math.round(sale.getSalePrice() * PAISE));
+    }
+
+    /**
+     * Appends a sale given as columns, without building a SaleModel for it.
+     */
+    public void add(long epochSecond, String brand, String model, double salePrice) {
+        append(epochSecond, NameDictionary.pairId(brand, model), Math.round(salePrice * PAISE));
+    }
+
+    /**
+     * Appends the sales in order; another SalesColumns is copied column by column.
+     */
+    @Override
+    public boolean addAll(Collection<? extends SaleModel> sales) {
+        if (!(sales instanceof SalesColumns)) return super.addAll(sales);
+        SalesColumns other = (SalesColumns) sales;
+        int count = other.size; // Also when appending the log to itself
+        for (int i = 0; i < count; i++) {
+            append(other.getEpochSecond(i), other.getPairId(i), other.getPaise(i));
+        }
+        return count > 0;
+    }
+
+    /**
+     * Removes sales [from, to). Dropping the oldest sales (as archiving does) only moves the start of
+     * the log forward; anything else copies the remaining rows into new chunks.
+     */
+    @Override
+    protected void removeRange(int from, int to) {
+        checkWritable();
+        if (from >= to) return;
+        modCount++;
+        if (from == 0 && to == size) {
+            resetRows();
+            return;
+        }
+        if (from == 0) {
+            head += to;
+            size -= to;
+            int dropped = head >>> CHUNK_BITS;
+            if (dropped > 0) {
+                // New chunk tables: a snapshot may still be reading the old ones
+                seconds = Arrays.copyOfRange(seconds, dropped, seconds.length);
+                pairIds = Arrays.copyOfRange(pairIds, dropped, pairIds.length);
+                paise = Arrays.copyOfRange(paise, dropped, paise.length);
+                head &= CHUNK_MASK;
+            }
+            return;
+        }
+        SalesColumns old = new SalesColumns(this);
+        resetRows();
+        for (int i = 0; i < old.size; i++) {
+            if (i >= from && i < to) continue;
+            append(old.getEpochSecond(i), old.getPairId(i), old.getPaise(i));
+        }
+    }
+
+    // --- Columns ---
+
+    /**
+     * Timestamp of sale i as local epoch seconds (see {@link FastTimestamp}).
+     */
+    public long getEpochSecond(int index) {
+        int row = row(index);
+        return seconds[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    /**
+     * Id of sale i's (brand, model) pair in the {@link NameDictionary}.
+     */
+    public int getPairId(int index) {
+        int row = row(index);
+        return pairIds[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    public double getSalePrice(int index) {
+        return getPaise(index) / PAISE;
+    }
+
+    private long getPaise(int index) {
+        int row = row(index);
+        return paise[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    /**
+     * A read-only copy of the current sales that costs one reference per chunk, not per sale.
+     */
+    public SalesColumns snapshot() {
+        return new SalesColumns(this);
+    }
+
+    // --- Internals ---
+
+    // Empty columns; the old chunks are left to snapshots still reading them
+    private void resetRows() {
+        seconds = new long[4][];
+        pairIds = new int[4][];
+        paise = new long[4][];
+        head = 0;
+        size = 0;
+    }
+
+    private int row(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return head + index;
+    }
+
+    private void append(long epochSecond, int pair, long pricePaise) {
+        checkWritable();
+        int row = head + size;
+        int chunk = row >>> CHUNK_BITS;
+        if (chunk == seconds.length) {
+            int capacity = Math.max(4, chunk * 2);
+            seconds = Arrays.copyOf(seconds, capacity);
+            pairIds = Arrays.copyOf(pairIds, capacity);
+            paise = Arrays.copyOf(paise, capacity);
+        }
+        if (seconds[chunk] == null) {
+            seconds[chunk] = new long[CHUNK_SIZE];
+            pairIds[chunk] = new int[CHUNK_SIZE];
+            paise[chunk] = new long[CHUNK_SIZE];
+        }
+        seconds[chunk][row & CHUNK_MASK] = epochSecond;
+        pairIds[chunk][row & CHUNK_MASK] = pair;
+        paise[chunk][row & CHUNK_MASK] = pricePaise;
+        size++;
+        modCount++;
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("Sales snapshot is read-only");
+    }
+}
@@ -0,0 +1,65 @@
+package showroom.model;
+
+/**
+ * Normalized forms of brand and model strings shared by {@link CarModel}'s cached keys and the
+ * indexes that look cars up by them, so both sides always normalize the same way.
+ */
+public final class SearchKeys {
+
+    private SearchKeys() {
+    }
+
+    /**
+     * Lowercased text, as the search box compares it.
+     */
+    public static String lower(String text) {
+        return text.toLowerCase();
+    }
+
+    /**
+     * Folds every code point the way {@link String#equalsIgnoreCase} compares it.
+     */
+    public static String fold(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        fold(s, sb);
+        return sb.toString();
+    }
+
+    public static void fold(String s, StringBuilder out) {
+        for (int i = 0; i < s.length(); ) {
+            int cp = s.codePointAt(i);
+            i += Character.charCount(cp);
+            if (cp < 0x80) {
+                out.append((char) (cp >= 'A' && cp <= 'Z' ? cp + ('a' - 'A') : cp));
+            } else {
+                out.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp)));
+            }
+        }
+    }
+
+    /**
+     * Composite case-insensitive lookup key: folded brand, NUL, folded model.
+     */
+    public static String lookupKey(String brand, String model) {
+        StringBuilder sb = new StringBuilder(brand.length() + model.length() + 1);
+        fold(brand, sb);
+        sb.append('\u0000');
+        fold(model, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Sort key whose natural order is brand, then model, ignoring letter case: folded brand, NUL,
+     * folded model, then NUL and the original brand and model as a tie-breaker, so names differing
+     * only in case still get a fixed order. NUL sorts below every other character, so a brand that
+     * is a prefix of another still sorts first, exactly as comparing the fields one by one would.
+     */
+    public static String sortKey(String brand, String model) {
+        StringBuilder sb = new StringBuilder(2 * (brand.length() + model.length()) + 3);
+        fold(brand, sb);
+        sb.append('\u0000');
+        fold(model, sb);
+        sb.append('\u0000').append(brand).append('\u0000').append(model);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,417 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.FastTimestamp;
+import showroom.model.SaleModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact log-structured store: a binary snapshot (store.snapshot, see {@link BinarySnapshot})
+ * plus an append-only binary log of mutations and sales (store.log). Loading reads the snapshot
+ * and replays newer log records; a checkpoint writes a fresh snapshot in the background and then
+ * compacts the log. Log records are written through to the OS on every mutation and forced on
+ * checkpoint and close.
+ *
+ * Record layout: int payload length, payload (long seq, byte type, fields), int CRC32 of the payload.
+ * A torn or corrupt record at the end of the log (crash mid-append) is cut off on load.
+ */
+public class BinaryInventoryRepository implements InventoryRepository {
+    private static final byte TYPE_ADD = 1;
+    private static final byte TYPE_UPDATE = 2;
+    private static final byte TYPE_REMOVE = 3;
+    private static final byte TYPE_SALE = 4;
+    private static final int CHECKPOINT_INTERVAL = 10_000; // Log records between snapshots
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int TRAILER_BYTES = Integer.BYTES;
+
+    private final Path dataDirectoryPath;
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final SnapshotWriter snapshots;
+
+    // Guarded by 'this'
+    private FileChannel log;
+    private long lastSeq;
+    private long checkpointSubmittedSeq; // Seq of the newest snapshot handed to the snapshot thread
+    private boolean logFailed;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+
+    public BinaryInventoryRepository(Path dataDirectoryPath) {
+        this.dataDirectoryPath = dataDirectoryPath;
+        this.snapshotPath = dataDirectoryPath.resolve("store.snapshot");
+        this.logPath = dataDirectoryPath.resolve("store.log");
+        // Once a snapshot is durable, everything it contains can be dropped from the log
+        this.snapshots = new SnapshotWriter(snapshotPath, this::compactThrough);
+    }
+
+    @Override
+    public String getName() { return "binary"; }
+
+    // --- Loading ---
+
+    @Override
+    public synchronized void load(List<CarModel> inventory, List<SaleModel> sales) throws IOException {
+        long startNanos = System.nanoTime();
+        long snapshotSeq = 0;
+        boolean fresh = !Files.exists(snapshotPath) && !Files.exists(logPath);
+        if (Files.exists(snapshotPath)) {
+            BinarySnapshot snapshot = BinarySnapshot.read(snapshotPath);
+            if (snapshot == null) throw new IOException("Unreadable binary store snapshot: " + snapshotPath);
+            inventory.addAll(snapshot.getInventory());
+            sales.addAll(snapshot.getSales());
+            snapshotSeq = snapshot.getJournalSeq();
+        }
+        lastSeq = snapshotSeq;
+        checkpointSubmittedSeq = snapshotSeq;
+
+        InventoryReplayer replayer = new InventoryReplayer(inventory);
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validEnd;
+        try {
+            validEnd = replay(snapshotSeq, replayer, sales);
+        } finally {
+            replayer.finish();
+        }
+        if (validEnd < log.size()) {
+            System.err.println("Discarding torn binary store record at offset " + validEnd + " in " + logPath);
+            log.truncate(validEnd);
+        }
+        log.position(validEnd);
+
+        if (fresh) {
+            importCsv(inventory, sales);
+        }
+        System.out.println("Loaded " + inventory.size() + " cars and " + sales.size() + " sales from binary store (seq " + lastSeq + ") in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms.");
+    }
+
+    // First start on an existing data folder: take over the CSV inventory and sales log as the initial snapshot
+    private void importCsv(List<CarModel> inventory, List<SaleModel> sales) {
+        if (!Files.exists(dataDirectoryPath.resolve("inventory.csv")) && !Files.exists(dataDirectoryPath.resolve("sales_log.csv"))
+                && !Files.exists(dataDirectoryPath.resolve("sales"))) return;
+        // Read-only, journal replayed: the CSV files are left exactly as they were
+        try {
+            CsvInventoryRepository.readOnly(dataDirectoryPath, inventory, sales);
+        } catch (IOException e) {
+            System.err.println("Error importing CSV data into binary store from: " + dataDirectoryPath + ". Error: " + e.getMessage());
+            inventory.clear();
+            sales.clear();
+            return;
+        }
+        System.out.println("Imported " + inventory.size() + " cars and " + sales.size() + " sales from CSV files into the binary store.");
+        checkpoint(inventory, sales);
+    }
+
+    // Returns the offset just past the last intact record
+    private long replay(long snapshotSeq, InventoryReplayer replayer, List<SaleModel> sales) throws IOException {
+        RecordReader reader = new RecordReader(log);
+        ByteBuffer payload;
+        while ((payload = reader.next()) != null) {
+            long seq = payload.getLong();
+            if (seq > lastSeq) lastSeq = seq;
+            if (seq <= snapshotSeq) continue;
+            apply(payload, replayer, sales);
+        }
+        return reader.offset();
+    }
+
+    private static void apply(ByteBuffer payload, InventoryReplayer replayer, List<SaleModel> sales) {
+        switch (payload.get()) {
+            case TYPE_ADD:
+                replayer.onAdd(readCar(payload));
+                break;
+            case TYPE_UPDATE: {
+                String oldBrand = readString(payload);
+                String oldModel = readString(payload);
+                replayer.onUpdate(oldBrand, oldModel, readCar(payload));
+                break;
+            }
+            case TYPE_REMOVE: {
+                String brand = readString(payload);
+                replayer.onRemove(brand, readString(payload));
+                break;
+            }
+            case TYPE_SALE: {
+                String brand = readString(payload);
+                String model = readString(payload);
+                long epochSecond = payload.getLong();
+                double price = payload.getDouble();
+                replayer.onQuantityDelta(brand, model, -1);
+                sales.add(new SaleModel(FastTimestamp.toLocalDateTime(epochSecond), brand, model, price));
+                break;
+            }
+            default:
+                System.err.println("Skipping binary store record of unknown type");
+        }
+    }
+
+    private static CarModel readCar(ByteBuffer buf) {
+        String brand = readString(buf);
+        String model = readString(buf);
+        double price = buf.getDouble();
+        int quantity = buf.getInt();
+        return new CarModel(brand, model, price, quantity, readString(buf));
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int len = buf.getInt();
+        if (len < 0) return null;
+        byte[] utf8 = new byte[len];
+        buf.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // --- Appending ---
+
+    @Override
+    public synchronized void carAdded(CarModel car) {
+        begin(TYPE_ADD);
+        putCar(car);
+        commit();
+    }
+
+    @Override
+    public synchronized void carUpdated(String oldBrand, String oldModel, CarModel car) {
+        begin(TYPE_UPDATE);
+        putString(oldBrand);
+        putString(oldModel);
+        putCar(car);
+        commit();
+    }
+
+    @Override
+    public synchronized void carRemoved(CarModel car) {
+        begin(TYPE_REMOVE);
+        putString(car.getBrand());
+        putString(car.getModel());
+        commit();
+    }
+
+    @Override
+    public synchronized void carSold(CarModel car, SaleModel sale) {
+        begin(TYPE_SALE);
+        putString(sale.getBrand());
+        putString(sale.getModel());
+        ensure(Long.BYTES + Double.BYTES);
+        record.putLong(sale.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        record.putDouble(sale.getSalePrice());
+        commit();
+    }
+
+    private void begin(byte type) {
+        record.clear();
+        record.putInt(0); // Length, patched in commit()
+        record.putLong(lastSeq + 1);
+        record.put(type);
+    }
+
+    private void putCar(CarModel car) {
+        putString(car.getBrand());
+        putString(car.getModel());
+        ensure(Double.BYTES + Integer.BYTES);
+        record.putDouble(car.getPrice());
+        record.putInt(car.getQuantity());
+        putString(car.getImagePath());
+    }
+
+    private void putString(String s) {
+        if (s == null) {
+            ensure(Integer.BYTES);
+            record.putInt(-1);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES + utf8.length);
+        record.putInt(utf8.length);
+        record.put(utf8);
+    }
+
+    private void ensure(int bytes) {
+        if (record.remaining() >= bytes + TRAILER_BYTES) return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes + TRAILER_BYTES));
+        record.flip();
+        grown.put(record);
+        record = grown;
+    }
+
+    private void commit() {
+        int payloadLength = record.position() - HEADER_BYTES;
+        record.putInt(0, payloadLength);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadLength);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        try {
+            if (log == null) throw new IOException("store is not open");
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+            lastSeq++;
+        } catch (IOException e) {
+            logFailed = true;
+            System.err.println("Error appending to binary store log: " + logPath + ". Error: " + e.getMessage());
+        }
+    }
+
+    // --- Checkpoints ---
+
+    @Override
+    public synchronized boolean needsCheckpoint() {
+        // Counted from the last submitted snapshot, so mutations made while it is being written do not queue more
+        return logFailed || lastSeq - checkpointSubmittedSeq >= CHECKPOINT_INTERVAL;
+    }
+
+    @Override
+    public synchronized void checkpoint(List<CarModel> inventory, List<SaleModel> sales) {
+        logFailed = false;
+        long seq = lastSeq;
+        checkpointSubmittedSeq = seq;
+        List<CarModel> cars = CsvInventoryRepository.copyOf(inventory);
+        List<SaleModel> salesCopy = CsvInventoryRepository.copyOfSales(sales);
+        snapshots.submit(out -> new BinarySnapshot(seq, 0, 0, cars, salesCopy).writeTo(out), seq);
+    }
+
+    // Rewrites the log keeping only records newer than the durable snapshot
+    private synchronized void compactThrough(long snapshotSeq) {
+        if (log == null) return;
+        Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try {
+            log.force(false);
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                RecordReader reader = new RecordReader(log);
+                ByteBuffer payload;
+                while ((payload = reader.next()) != null) {
+                    if (payload.getLong() <= snapshotSeq) continue;
+                    ByteBuffer whole = reader.record();
+                    while (whole.hasRemaining()) out.write(whole);
+                }
+                if (reader.offset() < log.size()) throw new IOException("corrupt record at offset " + reader.offset());
+                out.force(true);
+            }
+            log.close();
+            try {
+                Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error compacting binary store log: " + logPath + ". Error: " + e.getMessage());
+        } finally {
+            try {
+                if (!log.isOpen()) {
+                    log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    log.position(log.size());
+                }
+            } catch (IOException e) {
+                System.err.println("Could not reopen binary store log: " + logPath + ". Error: " + e.getMessage());
+                log = null;
+                logFailed = true;
+            }
+        }
+    }
+
+    /**
+     * Reads log records in order through the channel in blocks. The log is deliberately not memory
+     * mapped: on Windows a live mapping keeps the file from being truncated or replaced.
+     */
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private final long size;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        private long bufStart; // File offset of buf[0]
+        private int recordStart = -1;
+
+        RecordReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            buf.limit(0);
+        }
+
+        /**
+         * Payload of the next intact record, positioned at its seq; null at the end of the log or at a
+         * torn or corrupt record. Valid until the next call.
+         */
+        ByteBuffer next() throws IOException {
+            if (!fill(HEADER_BYTES)) return null;
+            int length = buf.getInt(buf.position());
+            if (length <= 0 || !fill(HEADER_BYTES + length + TRAILER_BYTES)) return null;
+
+            int start = buf.position(); // fill() may have moved the bytes
+            ByteBuffer payload = buf.duplicate();
+            payload.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + length);
+            payload = payload.slice();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if (buf.getInt(start + HEADER_BYTES + length) != (int) crc.getValue()) return null;
+
+            recordStart = start;
+            buf.position(start + HEADER_BYTES + length + TRAILER_BYTES);
+            return payload;
+        }
+
+        /**
+         * The whole record (length, payload and CRC) last returned by {@link #next}.
+         */
+        ByteBuffer record() {
+            ByteBuffer whole = buf.duplicate();
+            whole.position(recordStart).limit(buf.position());
+            return whole;
+        }
+
+        /**
+         * File offset just past the last record returned.
+         */
+        long offset() {
+            return bufStart + buf.position();
+        }
+
+        // Makes at least n bytes available from the current position; false if the log ends first
+        private boolean fill(int n) throws IOException {
+            if (buf.remaining() >= n) return true;
+            if (size - offset() < n) return false;
+            bufStart = offset();
+            if (buf.capacity() >= n) {
+                buf.compact();
+            } else {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buf.capacity() * 2, n));
+                grown.put(buf);
+                buf = grown;
+            }
+            while (buf.hasRemaining() && bufStart + buf.position() < size) {
+                if (channel.read(buf, bufStart + buf.position()) < 0) break;
+            }
+            buf.flip();
+            return buf.remaining() >= n;
+        }
+    }
+
+    @Override
+    public void close() {
+        snapshots.close(); // May compact the log one last time
+        synchronized (this) {
+            try {
+                if (log != null) {
+                    log.force(false);
+                    log.close();
+                    log = null;
+                }
+            } catch (IOException e) {
+                System.err.println("Error closing binary store log: " + logPath + ". Error: " + e.getMessage());
+            }
+        }
+    }
+}
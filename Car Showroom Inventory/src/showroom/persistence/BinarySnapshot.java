@@ -0,0 +1,253 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.NameDictionary;
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of the whole inventory and sales log, used for fast cold start.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int    magic "SHRS", short version
+ *   long   journal sequence number the inventory part reflects
+ *   long   length of the hot sales segment the sales part reflects, int CRC32 of the bytes just before it
+ *   int    dictionary size, then each string as (int length, UTF-8 bytes)
+ *   int    car count, then columns: brand id[], model id[], image id[], price[], quantity[]
+ *   int    sale count, then columns: epoch second[], brand id[], model id[], price[]
+ *   long   CRC32 of everything above
+ * </pre>
+ * The snapshot is fresh as long as the journal still holds every record after its sequence number
+ * and the hot sales segment still starts with the bytes it covered (see {@link SalesSegmentLog});
+ * anything newer is caught up from the journal and the segment tail.
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x53485253; // "SHRS"
+    private static final short VERSION = 1;
+    private static final int TAIL_CHECK_BYTES = 64;
+    private static final int NO_STRING = -1;
+
+    private final long journalSeq;
+    private final long salesLogLength;
+    private final int salesTailCrc;
+    private final List<CarModel> inventory;
+    private final List<SaleModel> sales;
+
+    public BinarySnapshot(long journalSeq, long salesLogLength, int salesTailCrc, List<CarModel> inventory, List<SaleModel> sales) {
+        this.journalSeq = journalSeq;
+        this.salesLogLength = salesLogLength;
+        this.salesTailCrc = salesTailCrc;
+        this.inventory = inventory;
+        this.sales = sales;
+    }
+
+    public long getJournalSeq() { return journalSeq; }
+    public long getSalesLogLength() { return salesLogLength; }
+    public List<CarModel> getInventory() { return inventory; }
+    public List<SaleModel> getSales() { return sales; }
+
+    /**
+     * True if the sales log still begins with exactly the bytes this snapshot was taken from.
+     */
+    public boolean matchesSalesLog(Path salesLogPath) throws IOException {
+        if (!Files.exists(salesLogPath)) return salesLogLength == 0;
+        if (Files.size(salesLogPath) < salesLogLength) return false;
+        return tailCrc(salesLogPath, salesLogLength) == salesTailCrc;
+    }
+
+    /**
+     * CRC32 of the last few bytes before the given length, used to detect a replaced or rewritten log.
+     */
+    public static int tailCrc(Path salesLogPath, long length) throws IOException {
+        if (length == 0) return 0;
+        try (FileChannel ch = FileChannel.open(salesLogPath, StandardOpenOption.READ)) {
+            int n = (int) Math.min(TAIL_CHECK_BYTES, length);
+            ByteBuffer buf = ByteBuffer.allocate(n);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, length - n + buf.position()) < 0) break;
+            }
+            buf.flip();
+            CRC32 crc = new CRC32();
+            crc.update(buf);
+            return (int) crc.getValue();
+        }
+    }
+
+    // --- Writing ---
+
+    public void writeTo(OutputStream target) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+
+        int carCount = inventory.size();
+        int[] carBrand = new int[carCount], carModel = new int[carCount], carImage = new int[carCount];
+        for (int i = 0; i < carCount; i++) {
+            CarModel car = inventory.get(i);
+            carBrand[i] = intern(car.getBrand(), ids, dictionary);
+            carModel[i] = intern(car.getModel(), ids, dictionary);
+            carImage[i] = intern(car.getImagePath(), ids, dictionary);
+        }
+        // Sales are written straight from the columns, interning each (brand, model) pair they use once
+        SalesColumns columns = SalesColumns.of(sales);
+        int saleCount = columns.size();
+        int maxPair = -1; // Sized by the pairs these sales use, not by every pair the process has seen
+        for (int i = 0; i < saleCount; i++) maxPair = Math.max(maxPair, columns.getPairId(i));
+        int[] pairBrand = new int[maxPair + 1], pairModel = new int[maxPair + 1];
+        Arrays.fill(pairBrand, -1);
+        for (int i = 0; i < saleCount; i++) {
+            int pair = columns.getPairId(i);
+            if (pairBrand[pair] >= 0) continue;
+            pairBrand[pair] = intern(NameDictionary.brand(pair), ids, dictionary);
+            pairModel[pair] = intern(NameDictionary.model(pair), ids, dictionary);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + carCount * 32 + saleCount * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(journalSeq);
+        out.writeLong(salesLogLength);
+        out.writeInt(salesTailCrc);
+
+        out.writeInt(dictionary.size());
+        for (String s : dictionary) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+
+        out.writeInt(carCount);
+        for (int id : carBrand) out.writeInt(id);
+        for (int id : carModel) out.writeInt(id);
+        for (int id : carImage) out.writeInt(id);
+        for (CarModel car : inventory) out.writeDouble(car.getPrice());
+        for (CarModel car : inventory) out.writeInt(car.getQuantity());
+
+        out.writeInt(saleCount);
+        for (int i = 0; i < saleCount; i++) out.writeLong(columns.getEpochSecond(i));
+        for (int i = 0; i < saleCount; i++) out.writeInt(pairBrand[columns.getPairId(i)]);
+        for (int i = 0; i < saleCount; i++) out.writeInt(pairModel[columns.getPairId(i)]);
+        for (int i = 0; i < saleCount; i++) out.writeDouble(columns.getSalePrice(i));
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeLong(crc.getValue());
+        out.flush();
+        bytes.writeTo(target);
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, List<String> dictionary) {
+        if (s == null) return NO_STRING;
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.add(s);
+            ids.put(s, id);
+        }
+        return id;
+    }
+
+    // --- Reading ---
+
+    /**
+     * Reads a snapshot, returning null (after logging) if it is missing, from another version or corrupt.
+     */
+    public static BinarySnapshot read(Path path) {
+        if (!Files.exists(path)) return null;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Read into the heap rather than mapped: the snapshot writer replaces this file while
+            // the service runs, and a mapping would keep the replaced file's pages alive
+            long size = ch.size();
+            if (size < 8 + 14) return null;
+            if (size > Integer.MAX_VALUE - 8) {
+                System.err.println("Binary snapshot is too large to read, ignoring: " + path);
+                return null;
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) throw new IOException("Binary snapshot ended at " + buf.position() + " of " + size + " bytes");
+            }
+            buf.flip();
+
+            CRC32 crc = new CRC32();
+            ByteBuffer body = buf.duplicate();
+            body.limit(buf.limit() - 8);
+            crc.update(body);
+            if (buf.getLong(buf.limit() - 8) != crc.getValue()) {
+                System.err.println("Binary snapshot checksum mismatch, ignoring: " + path);
+                return null;
+            }
+
+            if (buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+                System.err.println("Binary snapshot has an unknown format or version, ignoring: " + path);
+                return null;
+            }
+            long journalSeq = buf.getLong();
+            long salesLogLength = buf.getLong();
+            int salesTailCrc = buf.getInt();
+
+            String[] dictionary = new String[buf.getInt()];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < dictionary.length; i++) {
+                int len = buf.getInt();
+                if (scratch.length < len) scratch = new byte[len];
+                buf.get(scratch, 0, len);
+                dictionary[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+
+            int carCount = buf.getInt();
+            int[] carBrand = readInts(buf, carCount), carModel = readInts(buf, carCount), carImage = readInts(buf, carCount);
+            List<CarModel> inventory = new ArrayList<>(carCount);
+            for (int i = 0; i < carCount; i++) {
+                inventory.add(new CarModel(lookup(dictionary, carBrand[i]), lookup(dictionary, carModel[i]), 0, 0, lookup(dictionary, carImage[i])));
+            }
+            for (CarModel car : inventory) car.setPrice(buf.getDouble());
+            for (CarModel car : inventory) car.setQuantity(buf.getInt());
+
+            int saleCount = buf.getInt();
+            long[] epochSeconds = new long[saleCount];
+            for (int i = 0; i < saleCount; i++) epochSeconds[i] = buf.getLong();
+            int[] saleBrand = readInts(buf, saleCount), saleModel = readInts(buf, saleCount);
+            SalesColumns sales = new SalesColumns();
+            for (int i = 0; i < saleCount; i++) {
+                sales.add(epochSeconds[i], lookup(dictionary, saleBrand[i]), lookup(dictionary, saleModel[i]), buf.getDouble());
+            }
+
+            return new BinarySnapshot(journalSeq, salesLogLength, salesTailCrc, inventory, sales);
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            System.err.println("Could not read binary snapshot: " + path + ". Error: " + e);
+            return null;
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buf, int count) {
+        int[] values = new int[count];
+        buf.asIntBuffer().get(values);
+        buf.position(buf.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static String lookup(String[] dictionary, int id) {
+        return id == NO_STRING ? null : dictionary[id];
+    }
+}
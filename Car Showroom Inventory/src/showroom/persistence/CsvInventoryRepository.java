@@ -0,0 +1,296 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The original text storage: inventory.csv plus the sales log as monthly CSV segments (sales/) in the data directory.
+ * Inventory mutations go to an append-only journal and inventory.csv is rewritten only as a
+ * periodic checkpoint; sales are appended to the current month's segment through a group-commit writer. An optional binary
+ * snapshot lets startup skip re-parsing both CSV files when it can be caught up.
+ */
+public class CsvInventoryRepository implements InventoryRepository {
+    private static final String CHECKPOINT_PREFIX = "#checkpoint,";
+    private static final int CHECKPOINT_INTERVAL = 1000; // Journal records between CSV checkpoints
+
+    private final Path inventoryPath;
+    private final Path journalPath;
+    private final Path salesLogPath; // Single-file log of older versions, migrated into segments
+    private final Path salesDirectoryPath;
+    private final Path binarySnapshotPath;
+    private final boolean binarySnapshotEnabled;
+
+    private InventoryJournal journal;
+    private boolean journalFailed;
+    private long checkpointSubmittedSeq; // Journal seq of the newest checkpoint handed to the snapshot thread
+    private int unjournaledMutations; // Mutations since the last checkpoint while there is no journal
+    private SalesSegmentLog salesSegments; // Kept open for the lifetime of the repository
+    private final SnapshotWriter inventorySnapshots;
+    private final SnapshotWriter binarySnapshots;
+
+    public CsvInventoryRepository(Path dataDirectoryPath, boolean binarySnapshotEnabled) {
+        this.inventoryPath = dataDirectoryPath.resolve("inventory.csv");
+        this.journalPath = dataDirectoryPath.resolve("inventory.journal");
+        this.salesLogPath = dataDirectoryPath.resolve("sales_log.csv");
+        this.salesDirectoryPath = dataDirectoryPath.resolve("sales");
+        this.binarySnapshotPath = dataDirectoryPath.resolve("showroom.snapshot");
+        this.binarySnapshotEnabled = binarySnapshotEnabled;
+
+        inventorySnapshots = new SnapshotWriter(inventoryPath, seq -> {
+            // The checkpoint now contains every record up to seq, so the journal can drop them
+            if (journal != null) journal.truncateThrough(seq);
+        });
+        binarySnapshots = new SnapshotWriter(binarySnapshotPath, null);
+    }
+
+    @Override
+    public String getName() { return "csv"; }
+
+    @Override
+    public void load(List<CarModel> inventory, List<SaleModel> sales) throws IOException {
+        // Start from the binary snapshot when it can be caught up; otherwise parse the CSV files
+        BinarySnapshot snapshot = binarySnapshotEnabled ? BinarySnapshot.read(binarySnapshotPath) : null;
+        loadInventory(inventory, snapshot);
+        loadSalesLog(sales, snapshot);
+    }
+
+    private void loadInventory(List<CarModel> inventory, BinarySnapshot snapshot) throws IOException {
+        File file = inventoryPath.toFile();
+        System.out.println("Loading inventory from: " + inventoryPath); // Debugging
+
+        if (!file.exists()) {
+            System.out.println("Inventory file not found, creating new one.");
+            file.createNewFile();
+        }
+
+        long checkpointSeq = readCheckpointSeq(file);
+        if (snapshot != null && snapshot.getJournalSeq() >= checkpointSeq) {
+            // Snapshot is at least as new as the CSV checkpoint; the journal holds everything after it
+            inventory.addAll(snapshot.getInventory());
+            checkpointSeq = snapshot.getJournalSeq();
+            System.out.println("Loaded " + inventory.size() + " cars from binary snapshot (journal seq " + checkpointSeq + ").");
+        } else {
+            if (snapshot != null) System.out.println("Binary snapshot is older than the inventory checkpoint, loading CSV.");
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith(CHECKPOINT_PREFIX)) continue;
+                    CarModel car = CarModel.fromCSV(line);
+                    if (car != null) inventory.add(car);
+                }
+                System.out.println("Loaded " + inventory.size() + " cars from inventory.");
+            }
+        }
+
+        // Replay mutations recorded since the last checkpoint
+        journal = new InventoryJournal(journalPath);
+        InventoryReplayer replayer = new InventoryReplayer(inventory);
+        try {
+            journal.open(checkpointSeq, replayer);
+        } finally {
+            replayer.finish();
+        }
+        checkpointSubmittedSeq = checkpointSeq; // Replayed records count towards the next checkpoint
+        System.out.println("Inventory after journal replay: " + inventory.size() + " cars (journal seq " + journal.getLastSeq() + ").");
+    }
+
+    /**
+     * Reads the inventory (with its journal replayed) and the live sales as load() would, but only
+     * reads: no file is created, truncated, migrated or moved and no writer is started, so the
+     * folder stays exactly as the csv backend left it. Used to import CSV data into another backend.
+     */
+    public static void readOnly(Path dataDirectoryPath, List<CarModel> inventory, List<SaleModel> sales) throws IOException {
+        File file = dataDirectoryPath.resolve("inventory.csv").toFile();
+        long checkpointSeq = 0;
+        if (file.exists()) {
+            checkpointSeq = readCheckpointSeq(file);
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.startsWith(CHECKPOINT_PREFIX)) continue;
+                    CarModel car = CarModel.fromCSV(line);
+                    if (car != null) inventory.add(car);
+                }
+            }
+        }
+        InventoryReplayer replayer = new InventoryReplayer(inventory);
+        try {
+            InventoryJournal.replay(dataDirectoryPath.resolve("inventory.journal"), checkpointSeq, replayer);
+        } finally {
+            replayer.finish();
+        }
+        SalesSegmentLog.readLive(dataDirectoryPath.resolve("sales"), dataDirectoryPath.resolve("sales_log.csv"), sales);
+    }
+
+    // Reads the journal sequence number from the checkpoint header, 0 for legacy files without one
+    private static long readCheckpointSeq(File file) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String first = br.readLine();
+            if (first != null && first.startsWith(CHECKPOINT_PREFIX)) {
+                try {
+                    return Long.parseLong(first.substring(CHECKPOINT_PREFIX.length()).trim());
+                } catch (NumberFormatException e) {
+                    System.err.println("Malformed inventory checkpoint header: " + first);
+                }
+            }
+            return 0;
+        }
+    }
+
+    private void loadSalesLog(List<SaleModel> sales, BinarySnapshot snapshot) throws IOException {
+        System.out.println("Loading sales log from: " + salesDirectoryPath); // Debugging
+
+        // Memory-mapped, chunked and parsed in parallel; results stay in file order
+        long startNanos = System.nanoTime();
+        salesSegments = new SalesSegmentLog(salesDirectoryPath, salesLogPath);
+        salesSegments.load(sales, snapshot);
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Loaded " + sales.size() + " sales records in " + elapsedMillis + " ms.");
+    }
+
+    /**
+     * Monthly segments of the sales log with their manifest stats, oldest first.
+     */
+    @Override
+    public List<SalesSegment> getSalesSegments() {
+        return salesSegments != null ? salesSegments.getSegments() : List.of();
+    }
+
+    @Override
+    public int archiveSalesBefore(YearMonth month) {
+        return salesSegments != null ? salesSegments.archiveBefore(month) : 0;
+    }
+
+    @Override
+    public List<SaleModel> readArchivedSales(SalesSegment segment) throws IOException {
+        if (salesSegments == null) throw new IOException("Sales log is not loaded");
+        return salesSegments.readArchived(segment);
+    }
+
+    // --- Mutations ---
+
+    @Override
+    public void carAdded(CarModel car) {
+        recordJournalResult(journal != null && journal.appendAdd(car));
+    }
+
+    @Override
+    public void carUpdated(String oldBrand, String oldModel, CarModel car) {
+        recordJournalResult(journal != null && journal.appendUpdate(oldBrand, oldModel, car));
+    }
+
+    @Override
+    public void carRemoved(CarModel car) {
+        recordJournalResult(journal != null && journal.appendRemove(car.getBrand(), car.getModel()));
+    }
+
+    @Override
+    public void carSold(CarModel car, SaleModel sale) {
+        recordJournalResult(journal != null && journal.appendQuantityDelta(car.getBrand(), car.getModel(), -1));
+        saveSalesLog(sale);
+    }
+
+    // A failed append is covered by forcing a full checkpoint after this mutation
+    private void recordJournalResult(boolean appended) {
+        if (journal == null) {
+            unjournaledMutations++;
+        } else if (!appended) {
+            journalFailed = true;
+        }
+    }
+
+    private void saveSalesLog(SaleModel sale) {
+        if (salesSegments != null) salesSegments.append(sale);
+    }
+
+    // --- Checkpoints ---
+
+    @Override
+    public boolean needsCheckpoint() {
+        if (journalFailed) return true;
+        // Counted from the last submitted checkpoint, not the last durable one, so the mutations that
+        // follow while the snapshot thread is still writing do not each queue another full snapshot
+        if (journal == null) return unjournaledMutations >= CHECKPOINT_INTERVAL;
+        return journal.getLastSeq() - checkpointSubmittedSeq >= CHECKPOINT_INTERVAL;
+    }
+
+    @Override
+    public void checkpoint(List<CarModel> inventory, List<SaleModel> sales) {
+        journalFailed = false;
+        unjournaledMutations = 0;
+        if (journal != null) checkpointSubmittedSeq = journal.getLastSeq();
+        saveInventory(inventory);
+        saveBinarySnapshot(inventory, sales);
+    }
+
+    // Captures the inventory in memory and hands it to the snapshot thread; never blocks on disk
+    private void saveInventory(List<CarModel> inventory) {
+        long seq = journal != null ? journal.getLastSeq() : 0;
+        List<String> lines = new ArrayList<>(inventory.size() + 1);
+        if (journal != null) lines.add(CHECKPOINT_PREFIX + seq);
+        for (CarModel car : inventory) {
+            lines.add(car.toString());
+        }
+        System.out.println("Queued inventory snapshot at journal seq " + seq); // Debugging
+        inventorySnapshots.submit(lines, seq);
+    }
+
+    // Captures inventory, sales and the matching sales log length; waiting for the sales writer and
+    // serialization happen on the snapshot thread
+    private void saveBinarySnapshot(List<CarModel> inventory, List<SaleModel> sales) {
+        if (!binarySnapshotEnabled) return;
+        try {
+            long seq = journal != null ? journal.getLastSeq() : 0;
+            if (salesSegments == null) return;
+            SalesSegmentLog segments = salesSegments;
+            long salesLength = segments.getAppendedLength(); // Bytes of exactly the sales captured below
+            Path hotPath = segments.getHotPath();
+            List<CarModel> cars = copyOf(inventory);
+            List<SaleModel> salesCopy = copyOfSales(sales);
+            binarySnapshots.submit(out -> {
+                // The snapshot must describe bytes that are on disk, so wait for the queued sales first
+                segments.awaitWritten();
+                if (hotPath != null && Files.size(hotPath) < salesLength) {
+                    throw new IOException("Sales log " + hotPath + " is shorter than the captured " + salesLength + " bytes");
+                }
+                new BinarySnapshot(seq, salesLength, hotPath != null ? BinarySnapshot.tailCrc(hotPath, salesLength) : 0, cars, salesCopy).writeTo(out);
+            }, seq);
+        } catch (IOException e) {
+            System.err.println("Could not capture binary snapshot. Error: " + e.getMessage());
+        }
+    }
+
+    // Sales are immutable; a columnar log hands out a snapshot sharing its chunks instead of a copy
+    static List<SaleModel> copyOfSales(List<SaleModel> sales) {
+        return sales instanceof SalesColumns ? ((SalesColumns) sales).snapshot() : new ArrayList<>(sales);
+    }
+
+    // Cars are mutable, so snapshots written on another thread get their own copies
+    static List<CarModel> copyOf(List<CarModel> inventory) {
+        List<CarModel> cars = new ArrayList<>(inventory.size());
+        for (CarModel car : inventory) {
+            cars.add(new CarModel(car.getBrand(), car.getModel(), car.getPrice(), car.getQuantity(), car.getImagePath()));
+        }
+        return cars;
+    }
+
+    @Override
+    public void close() {
+        inventorySnapshots.close(); // Drains the final checkpoint before the journal is closed
+        binarySnapshots.close();
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing inventory journal. Error: " + e.getMessage());
+        }
+        if (salesSegments != null) salesSegments.close();
+    }
+}
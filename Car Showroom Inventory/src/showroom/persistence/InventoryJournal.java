@@ -0,0 +1,322 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.CsvScanner;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only write-ahead journal of inventory mutations.
+ * Every mutation is written as one line "seq,op,fields..." so a sale costs one small append
+ * instead of a full inventory.csv rewrite. The CSV is kept as a periodic checkpoint that
+ * records the last sequence number it already contains, so replay skips those records.
+ * Appends only number and queue the record; a background writer thread does all file I/O,
+ * including cutting records off after a checkpoint, so callers never wait on the disk.
+ */
+public class InventoryJournal implements Closeable {
+    public static final char OP_ADD = 'A';
+    public static final char OP_UPDATE = 'U';
+    public static final char OP_REMOVE = 'R';
+    public static final char OP_QUANTITY = 'Q';
+
+    /**
+     * Receives journal records during replay, in the order they were appended.
+     */
+    public interface Handler {
+        void onAdd(CarModel car);
+        void onUpdate(String oldBrand, String oldModel, CarModel car);
+        void onRemove(String brand, String model);
+        void onQuantityDelta(String brand, String model, int delta);
+    }
+
+    private final Path journalPath;
+    private final CsvScanner scanner = new CsvScanner();
+    private BufferedWriter writer; // Used only by the writer thread once open() has returned
+    private Thread writerThread;
+
+    // Guarded by 'this'
+    private List<String> pending = new ArrayList<>();
+    private long lastSeq;
+    private int recordsSinceCheckpoint;
+    private long truncateRequest = -1; // Newest checkpoint seq whose records the writer should drop
+    private boolean lastWriteFailed;
+    private boolean closed;
+
+    public InventoryJournal(Path journalPath) {
+        this.journalPath = journalPath;
+    }
+
+    /**
+     * Replays every record newer than the checkpoint, then opens the journal for appending.
+     * A torn last line (crash mid-append) is cut off so later appends start on a clean line.
+     */
+    public void open(long checkpointSeq, Handler handler) throws IOException {
+        lastSeq = checkpointSeq;
+        recordsSinceCheckpoint = 0;
+        if (Files.exists(journalPath)) {
+            truncateTornTail();
+            try (BufferedReader br = Files.newBufferedReader(journalPath)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    long seq = replayLine(line, checkpointSeq, handler);
+                    if (seq > lastSeq) lastSeq = seq;
+                    if (seq > checkpointSeq) recordsSinceCheckpoint++;
+                }
+            }
+        }
+        writer = Files.newBufferedWriter(journalPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        writerThread = new Thread(this::runWriter, "inventory-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Replays every record newer than the checkpoint without modifying the file: a torn last line
+     * is skipped rather than cut off, and the journal is not opened for appending.
+     */
+    public static void replay(Path journalPath, long checkpointSeq, Handler handler) throws IOException {
+        if (!Files.exists(journalPath)) return;
+        byte[] bytes = Files.readAllBytes(journalPath);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        if (end < bytes.length) System.err.println("Ignoring torn journal record at offset " + end + " in " + journalPath);
+        InventoryJournal reader = new InventoryJournal(journalPath);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes, 0, end), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                reader.replayLine(line, checkpointSeq, handler);
+            }
+        }
+    }
+
+    private void truncateTornTail() throws IOException {
+        try (FileChannel ch = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            long end = size;
+            ByteBuffer one = ByteBuffer.allocate(1);
+            while (end > 0) {
+                one.clear();
+                ch.read(one, end - 1);
+                if (one.get(0) == '\n') break;
+                end--;
+            }
+            if (end < size) {
+                System.err.println("Discarding torn journal record at offset " + end + " in " + journalPath);
+                ch.truncate(end);
+            }
+        }
+    }
+
+    // Returns the record's sequence number, or -1 if the line is malformed
+    private long replayLine(String line, long checkpointSeq, Handler handler) {
+        CsvScanner scanner = this.scanner.reset(line);
+        long seq = scanner.next() ? scanner.longValue() : -1;
+        boolean hasOp = scanner.next() && scanner.fieldLength() == 1;
+        if (scanner.failed() || !hasOp) {
+            System.err.println("Skipping malformed journal record: " + line + ". Error: " + (scanner.failed() ? scanner.error() : "bad operation"));
+            return -1;
+        }
+        if (seq <= checkpointSeq) return seq;
+
+        char op = scanner.fieldChar(0);
+        switch (op) {
+            case OP_ADD: {
+                CarModel car = CarModel.fromCSV(scanner);
+                if (car == null) return -1;
+                handler.onAdd(car);
+                break;
+            }
+            case OP_UPDATE: {
+                String oldBrand = scanner.next() ? scanner.name() : null;
+                String oldModel = scanner.next() ? scanner.name() : null;
+                CarModel car = CarModel.fromCSV(scanner);
+                if (car == null) return -1;
+                handler.onUpdate(oldBrand, oldModel, car);
+                break;
+            }
+            case OP_REMOVE: {
+                String brand = scanner.next() ? scanner.name() : null;
+                String model = scanner.next() ? scanner.name() : null;
+                if (scanner.failed()) break;
+                handler.onRemove(brand, model);
+                break;
+            }
+            case OP_QUANTITY: {
+                String brand = scanner.next() ? scanner.name() : null;
+                String model = scanner.next() ? scanner.name() : null;
+                int delta = scanner.next() ? scanner.intValue() : 0;
+                if (scanner.failed()) break;
+                handler.onQuantityDelta(brand, model, delta);
+                break;
+            }
+            default:
+                System.err.println("Skipping journal record with unknown operation: " + line);
+                return -1;
+        }
+        if (scanner.failed()) {
+            System.err.println("Skipping malformed journal record: " + line + ". Error: " + scanner.error());
+            return -1;
+        }
+        return seq;
+    }
+
+    // --- Appending ---
+
+    public boolean appendAdd(CarModel car) {
+        return append(OP_ADD, car.toString());
+    }
+
+    public boolean appendUpdate(String oldBrand, String oldModel, CarModel car) {
+        return append(OP_UPDATE, CsvScanner.quote(oldBrand) + "," + CsvScanner.quote(oldModel) + "," + car);
+    }
+
+    public boolean appendRemove(String brand, String model) {
+        return append(OP_REMOVE, CsvScanner.quote(brand) + "," + CsvScanner.quote(model));
+    }
+
+    public boolean appendQuantityDelta(String brand, String model, int delta) {
+        return append(OP_QUANTITY, CsvScanner.quote(brand) + "," + CsvScanner.quote(model) + "," + delta);
+    }
+
+    // Numbers and queues the record; false if the journal is closed or the last write failed
+    private synchronized boolean append(char op, String body) {
+        if (closed || writerThread == null || !writerThread.isAlive()) return false;
+        long seq = ++lastSeq;
+        pending.add(seq + "," + op + "," + body);
+        recordsSinceCheckpoint++;
+        notifyAll();
+        return !lastWriteFailed;
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<String> batch;
+            long truncateSeq;
+            long batchLastSeq;
+            boolean shuttingDown;
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && truncateRequest < 0 && !closed) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                truncateSeq = truncateRequest;
+                truncateRequest = -1;
+                batchLastSeq = lastSeq;
+                shuttingDown = closed;
+            }
+
+            // No lock held from here on: appends keep queueing while the file is written or rewritten
+            boolean failed = false;
+            if (!batch.isEmpty()) {
+                try {
+                    if (writer == null) throw new IOException("journal is not open");
+                    for (String line : batch) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    failed = true;
+                    System.err.println("Error appending to inventory journal: " + journalPath + ". Error: " + e.getMessage());
+                }
+            }
+            if (truncateSeq >= 0) rewriteAfter(truncateSeq, batchLastSeq);
+
+            synchronized (this) {
+                lastWriteFailed = failed;
+                if (shuttingDown && pending.isEmpty() && truncateRequest < 0) break;
+            }
+        }
+        try {
+            if (writer != null) writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing inventory journal: " + journalPath + ". Error: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    // --- Checkpointing ---
+
+    public synchronized long getLastSeq() { return lastSeq; }
+
+    public synchronized int getRecordsSinceCheckpoint() { return recordsSinceCheckpoint; }
+
+    /**
+     * Drops every record up to and including the given sequence number, which must already be
+     * durable in the CSV checkpoint. Records appended after that point are kept. Only queues the
+     * request; the writer thread rewrites the file after the records queued before it.
+     */
+    public synchronized void truncateThrough(long checkpointSeq) {
+        if (closed || writerThread == null) return;
+        truncateRequest = Math.max(truncateRequest, checkpointSeq);
+        recordsSinceCheckpoint = (int) Math.max(0, lastSeq - checkpointSeq);
+        notifyAll();
+    }
+
+    // Runs on the writer thread; every record up to writtenSeq is in the file
+    private void rewriteAfter(long checkpointSeq, long writtenSeq) {
+        try {
+            if (writer != null) writer.close();
+            if (checkpointSeq >= writtenSeq) {
+                Files.write(journalPath, new byte[0]);
+            } else {
+                Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+                try (BufferedReader br = Files.newBufferedReader(journalPath);
+                     BufferedWriter bw = Files.newBufferedWriter(tmp)) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        int comma = line.indexOf(',');
+                        if (comma > 0 && Long.parseLong(line.substring(0, comma)) > checkpointSeq) {
+                            bw.write(line);
+                            bw.newLine();
+                        }
+                    }
+                }
+                Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error truncating inventory journal: " + journalPath + ". Error: " + e.getMessage());
+        } finally {
+            try {
+                writer = Files.newBufferedWriter(journalPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Could not reopen inventory journal: " + journalPath + ". Error: " + e.getMessage());
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Writes everything still queued, including a pending truncation, then closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            thread = writerThread;
+            notifyAll();
+        }
+        if (thread == null) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
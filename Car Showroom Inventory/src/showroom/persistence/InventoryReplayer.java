@@ -0,0 +1,70 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.SearchKeys;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies replayed mutations to an in-memory inventory list during loading.
+ * Keeps a temporary case-insensitive brand+model index of list positions so replaying a long log
+ * stays linear: updates replace the car in place and removals leave a null slot, which
+ * {@link #finish} compacts once after the last record.
+ */
+class InventoryReplayer implements InventoryJournal.Handler {
+    private final List<CarModel> inventory;
+    private final Map<String, Integer> indexByKey = new HashMap<>();
+    private int removed; // Null slots left by removals
+
+    InventoryReplayer(List<CarModel> inventory) {
+        this.inventory = inventory;
+        for (int i = 0; i < inventory.size(); i++) {
+            indexByKey.putIfAbsent(inventory.get(i).getLookupKey(), i);
+        }
+    }
+
+    CarModel find(String brand, String model) {
+        Integer index = indexByKey.get(SearchKeys.lookupKey(brand, model));
+        return index != null ? inventory.get(index) : null;
+    }
+
+    @Override
+    public void onAdd(CarModel car) {
+        inventory.add(car);
+        indexByKey.putIfAbsent(car.getLookupKey(), inventory.size() - 1);
+    }
+
+    @Override
+    public void onUpdate(String oldBrand, String oldModel, CarModel car) {
+        Integer index = indexByKey.remove(SearchKeys.lookupKey(oldBrand, oldModel));
+        if (index == null) return;
+        inventory.set(index, car);
+        indexByKey.put(car.getLookupKey(), index);
+    }
+
+    @Override
+    public void onRemove(String brand, String model) {
+        Integer index = indexByKey.remove(SearchKeys.lookupKey(brand, model));
+        if (index == null) return;
+        inventory.set(index, null);
+        removed++;
+    }
+
+    @Override
+    public void onQuantityDelta(String brand, String model, int delta) {
+        CarModel existing = find(brand, model);
+        if (existing != null) existing.setQuantity(existing.getQuantity() + delta);
+    }
+
+    /**
+     * Drops the slots of removed cars, keeping the order of the rest. Call once after replaying.
+     */
+    void finish() {
+        if (removed == 0) return;
+        inventory.removeIf(car -> car == null);
+        removed = 0;
+        indexByKey.clear(); // Positions are stale now
+    }
+}
@@ -0,0 +1,42 @@
+package showroom.persistence;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Chooses the storage backend from system properties:
+ * -Dshowroom.storage=csv|binary|jdbc (default csv),
+ * -Dshowroom.snapshot.binary=true|false (csv only, default true),
+ * -Dshowroom.jdbc.url=... (jdbc only, required). No JDBC driver ships with the application, so the
+ * jdbc backend also needs the database's driver jar on the classpath, e.g.
+ * -cp classes:h2.jar -Dshowroom.jdbc.url=jdbc:h2:./data/showroom.
+ * An unknown backend or a missing jdbc URL is an error rather than a silent switch to csv.
+ */
+public final class InventoryRepositories {
+
+    private InventoryRepositories() {
+    }
+
+    public static InventoryRepository fromSystemProperties(Path dataDirectoryPath) {
+        String storage = System.getProperty("showroom.storage", "csv").trim().toLowerCase(Locale.ROOT);
+        switch (storage) {
+            case "binary":
+                return new BinaryInventoryRepository(dataDirectoryPath);
+            case "jdbc":
+                String url = System.getProperty("showroom.jdbc.url");
+                if (url == null || url.trim().isEmpty()) {
+                    throw new IllegalStateException("The jdbc storage backend needs -Dshowroom.jdbc.url and the database's driver jar on the classpath.");
+                }
+                return new JdbcInventoryRepository(url.trim());
+            case "csv":
+                return csv(dataDirectoryPath);
+            default:
+                throw new IllegalStateException("Unknown storage backend '" + storage + "'; use csv, binary or jdbc.");
+        }
+    }
+
+    public static InventoryRepository csv(Path dataDirectoryPath) {
+        boolean binarySnapshot = Boolean.parseBoolean(System.getProperty("showroom.snapshot.binary", "true"));
+        return new CsvInventoryRepository(dataDirectoryPath, binarySnapshot);
+    }
+}
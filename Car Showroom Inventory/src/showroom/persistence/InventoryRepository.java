@@ -0,0 +1,86 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.SaleModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Storage SPI for the inventory and the sales log.
+ * The service keeps the working set in memory and reports every mutation here; each backend
+ * decides how to make it durable (journal + CSV checkpoints, a binary log-structured store,
+ * an embedded SQL database, ...). Implementations log their own I/O errors, like the rest
+ * of the service, rather than throwing from the mutation callbacks.
+ */
+public interface InventoryRepository extends Closeable {
+
+    /**
+     * Short backend name for logging and configuration ("csv", "binary", "jdbc").
+     */
+    String getName();
+
+    /**
+     * Loads the persisted state into the given (empty) lists, sales in recording order.
+     */
+    void load(List<CarModel> inventory, List<SaleModel> sales) throws IOException;
+
+    void carAdded(CarModel car);
+
+    /**
+     * The car has already been changed in place; oldBrand/oldModel identify it as it was stored.
+     */
+    void carUpdated(String oldBrand, String oldModel, CarModel car);
+
+    void carRemoved(CarModel car);
+
+    /**
+     * The car's quantity has already been decremented and the sale added to the in-memory log.
+     */
+    void carSold(CarModel car, SaleModel sale);
+
+    /**
+     * Time-partitioned segments of the stored sales log with their per-segment stats, oldest first.
+     * Loaded segments map onto contiguous ranges of the sales list filled by {@link #load}.
+     * Backends that do not partition their sales return an empty list.
+     */
+    default List<SalesSegment> getSalesSegments() {
+        return List.of();
+    }
+
+    /**
+     * Archives whole sales segments older than the given month so they are no longer loaded.
+     *
+     * @return how many sales were archived; they are the first entries of the in-memory sales list
+     */
+    default int archiveSalesBefore(YearMonth month) {
+        return 0;
+    }
+
+    /**
+     * Reads the sales of an archived segment back from storage, e.g. for a date range that only
+     * partly covers it. Only called for segments this backend reported as archived.
+     */
+    default List<SaleModel> readArchivedSales(SalesSegment segment) throws IOException {
+        throw new IOException(getName() + " storage has no archived sales segments");
+    }
+
+    /**
+     * True when the backend wants a full {@link #checkpoint} (e.g. its log has grown long).
+     */
+    boolean needsCheckpoint();
+
+    /**
+     * Persists the complete current state so incremental logs can be compacted.
+     * Must not block on disk; backends hand the work to a background thread.
+     */
+    void checkpoint(List<CarModel> inventory, List<SaleModel> sales);
+
+    /**
+     * Flushes everything still pending and releases files or connections.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,200 @@
+package showroom.persistence;
+
+import showroom.model.CarModel;
+import showroom.model.FastTimestamp;
+import showroom.model.SaleModel;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.ZoneOffset;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores inventory and sales in an embedded, in-process SQL database through JDBC
+ * (e.g. H2 "jdbc:h2:./data/showroom" or SQLite "jdbc:sqlite:data/showroom.db").
+ * The driver jar only has to be on the classpath; no vendor API is used, and none ships with the
+ * application, so loading fails with the missing driver named when it is absent. Every mutation is its
+ * own transaction, and a sale updates the stock and inserts the sale row atomically, so the
+ * database never needs a checkpoint.
+ */
+public class JdbcInventoryRepository implements InventoryRepository {
+    private static final String CREATE_CARS =
+            "CREATE TABLE IF NOT EXISTS cars (id BIGINT PRIMARY KEY, brand VARCHAR(255) NOT NULL, model VARCHAR(255) NOT NULL, "
+            + "price DOUBLE PRECISION NOT NULL, quantity INTEGER NOT NULL, image_path VARCHAR(1024))";
+    private static final String CREATE_SALES =
+            "CREATE TABLE IF NOT EXISTS sales (id BIGINT PRIMARY KEY, sold_at BIGINT NOT NULL, brand VARCHAR(255) NOT NULL, "
+            + "model VARCHAR(255) NOT NULL, price DOUBLE PRECISION NOT NULL)";
+
+    private final String url;
+    private Connection connection;
+    private PreparedStatement insertCar;
+    private PreparedStatement updateCar;
+    private PreparedStatement deleteCar;
+    private PreparedStatement updateQuantity;
+    private PreparedStatement insertSale;
+
+    // Row ids of the in-memory cars; CarModel has no identity of its own
+    private final Map<CarModel, Long> carIds = new IdentityHashMap<>();
+    private long nextCarId = 1;
+    private long nextSaleId = 1;
+
+    public JdbcInventoryRepository(String url) {
+        this.url = url;
+    }
+
+    @Override
+    public String getName() { return "jdbc"; }
+
+    @Override
+    public synchronized void load(List<CarModel> inventory, List<SaleModel> sales) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            DriverManager.getDriver(url);
+        } catch (SQLException e) {
+            throw new IOException("No JDBC driver for " + url + " on the classpath; add the database's driver jar", e);
+        }
+        try {
+            connection = DriverManager.getConnection(url);
+            try (Statement st = connection.createStatement()) {
+                st.execute(CREATE_CARS);
+                st.execute(CREATE_SALES);
+            }
+
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT id, brand, model, price, quantity, image_path FROM cars ORDER BY id")) {
+                while (rs.next()) {
+                    long id = rs.getLong(1);
+                    CarModel car = new CarModel(rs.getString(2), rs.getString(3), rs.getDouble(4), rs.getInt(5), rs.getString(6));
+                    inventory.add(car);
+                    carIds.put(car, id);
+                    nextCarId = Math.max(nextCarId, id + 1);
+                }
+            }
+            try (Statement st = connection.createStatement()) {
+                st.setFetchSize(10_000);
+                try (ResultSet rs = st.executeQuery("SELECT id, sold_at, brand, model, price FROM sales ORDER BY id")) {
+                    while (rs.next()) {
+                        sales.add(new SaleModel(FastTimestamp.toLocalDateTime(rs.getLong(2)), rs.getString(3), rs.getString(4), rs.getDouble(5)));
+                        nextSaleId = Math.max(nextSaleId, rs.getLong(1) + 1);
+                    }
+                }
+            }
+
+            insertCar = connection.prepareStatement("INSERT INTO cars (id, brand, model, price, quantity, image_path) VALUES (?, ?, ?, ?, ?, ?)");
+            updateCar = connection.prepareStatement("UPDATE cars SET brand = ?, model = ?, price = ?, quantity = ?, image_path = ? WHERE id = ?");
+            deleteCar = connection.prepareStatement("DELETE FROM cars WHERE id = ?");
+            updateQuantity = connection.prepareStatement("UPDATE cars SET quantity = ? WHERE id = ?");
+            insertSale = connection.prepareStatement("INSERT INTO sales (id, sold_at, brand, model, price) VALUES (?, ?, ?, ?, ?)");
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Could not open database " + url + ": " + e.getMessage(), e);
+        }
+        System.out.println("Loaded " + inventory.size() + " cars and " + sales.size() + " sales from " + url + " in "
+                + (System.nanoTime() - startNanos) / 1_000_000 + " ms.");
+    }
+
+    @Override
+    public synchronized void carAdded(CarModel car) {
+        try {
+            long id = nextCarId++;
+            insertCar.setLong(1, id);
+            bindCar(insertCar, 2, car);
+            insertCar.executeUpdate();
+            carIds.put(car, id);
+        } catch (SQLException e) {
+            System.err.println("Error inserting car into database: " + car + ". Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void carUpdated(String oldBrand, String oldModel, CarModel car) {
+        Long id = carIds.get(car);
+        if (id == null) {
+            System.err.println("Database has no row for updated car: " + oldBrand + " " + oldModel);
+            return;
+        }
+        try {
+            bindCar(updateCar, 1, car);
+            updateCar.setLong(6, id);
+            updateCar.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error updating car in database: " + car + ". Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void carRemoved(CarModel car) {
+        Long id = carIds.remove(car);
+        if (id == null) return;
+        try {
+            deleteCar.setLong(1, id);
+            deleteCar.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error deleting car from database: " + car + ". Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void carSold(CarModel car, SaleModel sale) {
+        Long id = carIds.get(car);
+        try {
+            connection.setAutoCommit(false);
+            if (id != null) {
+                updateQuantity.setInt(1, car.getQuantity());
+                updateQuantity.setLong(2, id);
+                updateQuantity.executeUpdate();
+            }
+            insertSale.setLong(1, nextSaleId++);
+            insertSale.setLong(2, sale.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            insertSale.setString(3, sale.getBrand());
+            insertSale.setString(4, sale.getModel());
+            insertSale.setDouble(5, sale.getSalePrice());
+            insertSale.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            System.err.println("Error recording sale in database: " + sale + ". Error: " + e.getMessage());
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+                // Connection is unusable; the error above has been reported
+            }
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Reported on the next statement
+            }
+        }
+    }
+
+    private static void bindCar(PreparedStatement ps, int first, CarModel car) throws SQLException {
+        ps.setString(first, car.getBrand());
+        ps.setString(first + 1, car.getModel());
+        ps.setDouble(first + 2, car.getPrice());
+        ps.setInt(first + 3, car.getQuantity());
+        ps.setString(first + 4, car.getImagePath());
+    }
+
+    @Override
+    public boolean needsCheckpoint() {
+        return false;
+    }
+
+    @Override
+    public void checkpoint(List<CarModel> inventory, List<SaleModel> sales) {
+        // Every mutation is already committed
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database " + url + ". Error: " + e.getMessage());
+        }
+        connection = null;
+    }
+}
@@ -0,0 +1,177 @@
+package showroom.persistence;
+
+import showroom.model.CsvScanner;
+import showroom.model.SaleModel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel loader for sales log files (a monthly segment or the legacy sales_log.csv).
+ * The file is split into newline-aligned chunks, each chunk is memory-mapped and parsed on the
+ * fork-join pool, and the per-chunk results are concatenated in file order. A chunk that cannot be
+ * mapped is read into the heap instead; if that fails too the whole load fails rather than
+ * silently dropping the chunk's sales.
+ */
+public final class SalesLogLoader {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;        // Below this, parallelism costs more than it saves
+    private static final long MAX_CHUNK_BYTES = 64L << 20;        // Keeps each mapping well under the 2 GB limit
+    private static final int BOUNDARY_SCAN_BYTES = 4096;
+
+    private SalesLogLoader() {}
+
+    public static List<SaleModel> load(Path filePath) throws IOException {
+        return load(filePath, 0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the sales starting at a byte offset that must be the start of a line,
+     * e.g. the tail appended after a binary snapshot was taken.
+     */
+    public static List<SaleModel> load(Path filePath, long fromOffset) throws IOException {
+        return load(filePath, fromOffset, ForkJoinPool.commonPool());
+    }
+
+    public static List<SaleModel> load(Path filePath, long fromOffset, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= fromOffset) return new ArrayList<>();
+
+            long[] bounds = chunkBounds(channel, fromOffset, size, pool.getParallelism());
+            List<ForkJoinTask<List<SaleModel>>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                if (bounds[i + 1] > bounds[i]) {
+                    tasks.add(pool.submit(new ChunkTask(channel, bounds[i], bounds[i + 1])));
+                }
+            }
+
+            List<List<SaleModel>> parts = new ArrayList<>(tasks.size());
+            int total = 0;
+            for (ForkJoinTask<List<SaleModel>> task : tasks) {
+                List<SaleModel> part;
+                try {
+                    part = task.join();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                parts.add(part);
+                total += part.size();
+            }
+            List<SaleModel> sales = new ArrayList<>(total);
+            for (List<SaleModel> part : parts) {
+                sales.addAll(part);
+            }
+            return sales;
+        }
+    }
+
+    // Splits [from, size) into roughly equal chunks whose boundaries sit just after a newline
+    private static long[] chunkBounds(FileChannel channel, long from, long size, int parallelism) throws IOException {
+        long span = size - from;
+        long chunkCount = Math.max(1, Math.min((long) parallelism * 4, span / MIN_CHUNK_BYTES));
+        chunkCount = Math.max(chunkCount, (span + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long target = span / chunkCount;
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(from);
+        long prev = from;
+        for (int i = 1; i < chunkCount; i++) {
+            long aligned = nextLineStart(channel, Math.max(prev, from + i * target), size);
+            if (aligned >= size) break;
+            if (aligned > prev) {
+                bounds.add(aligned);
+                prev = aligned;
+            }
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        long pos = from;
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static final class ChunkTask extends RecursiveTask<List<SaleModel>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<SaleModel> compute() {
+            ByteBuffer buf;
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                System.err.println("Error mapping sales log chunk [" + start + ", " + end + "), reading it instead. Error: " + e.getMessage());
+                try {
+                    buf = read(channel, start, end);
+                } catch (IOException readError) {
+                    throw new UncheckedIOException(readError);
+                }
+            }
+            return parseChunk(buf);
+        }
+    }
+
+    // Sequential fallback for a chunk that could not be mapped
+    private static ByteBuffer read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) (end - start));
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start + buf.position()) < 0) {
+                throw new IOException("Sales log ended at " + (start + buf.position()) + " while reading up to " + end);
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    // Scans the mapped bytes in place; only the SaleModel objects and their strings are allocated
+    private static List<SaleModel> parseChunk(ByteBuffer buf) {
+        int limit = buf.limit();
+        List<SaleModel> sales = new ArrayList<>(limit / 40);
+        CsvScanner scanner = new CsvScanner();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || buf.get(i) == '\n') {
+                // Skip blank lines (including a lone '\r')
+                if (i > lineStart && !(i == lineStart + 1 && buf.get(lineStart) == '\r')) {
+                    SaleModel sale = SaleModel.fromCSV(scanner.reset(buf, lineStart, i));
+                    if (sale != null) sales.add(sale);
+                }
+                lineStart = i + 1;
+            }
+        }
+        return sales;
+    }
+}
@@ -0,0 +1,231 @@
+package showroom.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Long-lived appender for a sales log file with group commit.
+ * Sales handed to {@link #append(String)} are queued; a background flusher collects everything
+ * that arrives within the group-commit window and writes it with one channel write plus at
+ * most one force(), depending on the configured {@link Durability}. The window is only held open
+ * while sales keep arriving during earlier writes: a sale that finds the flusher idle is written
+ * at once, so a lone sale never waits for the window.
+ */
+public class SalesLogWriter implements Closeable {
+
+    /**
+     * When appended sales are forced to stable storage.
+     */
+    public enum Durability {
+        EVERY_SALE,  // append() returns only after its batch has been forced
+        INTERVAL,    // force at most once per force interval
+        OS_MANAGED   // never force explicitly, leave it to the OS page cache
+    }
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Path filePath;
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long groupCommitMillis;
+    private final long forceIntervalMillis;
+    private final Thread flusher;
+
+    // Guarded by 'this'
+    private List<String> pending = new ArrayList<>();
+    private long appendedCount;
+    private long appendedLength; // File length once every appended line is written
+    private long committedCount;
+    private long committedLength; // File length after the last written batch
+    private boolean lastBatchFailed;
+    private boolean closed;
+
+    public SalesLogWriter(Path filePath, Durability durability, long groupCommitMillis, long forceIntervalMillis) throws IOException {
+        this.filePath = filePath;
+        this.durability = durability;
+        this.groupCommitMillis = Math.max(0, groupCommitMillis);
+        this.forceIntervalMillis = Math.max(1, forceIntervalMillis);
+        this.channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.committedLength = channel.size();
+        this.appendedLength = committedLength;
+
+        flusher = new Thread(this::runFlusher, "sales-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Builds a writer from system properties:
+     * showroom.sales.durability (EVERY_SALE, INTERVAL, OS_MANAGED),
+     * showroom.sales.groupCommitMillis and showroom.sales.forceIntervalMillis.
+     * The default is INTERVAL, so a sale made on the GUI thread only queues its line; EVERY_SALE
+     * trades that for waiting on force() and should be chosen explicitly.
+     */
+    public static SalesLogWriter fromSystemProperties(Path filePath) throws IOException {
+        Durability durability = Durability.valueOf(System.getProperty("showroom.sales.durability", Durability.INTERVAL.name()).trim().toUpperCase());
+        long window = Long.getLong("showroom.sales.groupCommitMillis", 5);
+        long interval = Long.getLong("showroom.sales.forceIntervalMillis", 1000);
+        return new SalesLogWriter(filePath, durability, window, interval);
+    }
+
+    public Durability getDurability() { return durability; }
+
+    /**
+     * Queues one CSV line. With {@link Durability#EVERY_SALE} this blocks until the group
+     * containing the line has been written and forced.
+     *
+     * @return false if the writer is closed, its flusher has died or the batch could not be written
+     */
+    public synchronized boolean append(String line) {
+        if (closed) return false;
+        pending.add(line);
+        appendedLength += line.getBytes(StandardCharsets.UTF_8).length + LINE_SEPARATOR.length();
+        long ticket = ++appendedCount;
+        notifyAll();
+
+        if (durability != Durability.EVERY_SALE) return true;
+        boolean interrupted = false;
+        while (committedCount < ticket && flusher.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return committedCount >= ticket && !lastBatchFailed;
+    }
+
+    /**
+     * The file length once every sale appended so far has been written; does not wait.
+     */
+    public synchronized long getAppendedLength() {
+        return appendedLength;
+    }
+
+    /**
+     * Waits until every sale appended so far has been written (not necessarily forced)
+     * and returns the resulting file length.
+     */
+    public synchronized long sync() {
+        long target = appendedCount;
+        boolean interrupted = false;
+        while (committedCount < target && flusher.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return committedLength;
+    }
+
+    private void runFlusher() {
+        long lastForce = System.currentTimeMillis();
+        boolean dirty = false; // Written but not yet forced
+        while (true) {
+            List<String> batch;
+            long batchEnd;
+            boolean shuttingDown;
+            synchronized (this) {
+                boolean idle = pending.isEmpty(); // Nothing arrived while the last batch was written
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        if (dirty && durability == Durability.INTERVAL) {
+                            long remaining = forceIntervalMillis - (System.currentTimeMillis() - lastForce);
+                            if (remaining <= 0) break;
+                            wait(remaining);
+                        } else {
+                            wait();
+                        }
+                    }
+                    // Sales are arriving faster than batches are written: hold the group open so they join the same write
+                    if (!idle && !pending.isEmpty() && groupCommitMillis > 0) {
+                        long deadline = System.currentTimeMillis() + groupCommitMillis;
+                        long remaining;
+                        while (!closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                            wait(remaining);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                batchEnd = appendedCount;
+                shuttingDown = closed;
+            }
+
+            boolean failed = false;
+            long length = -1;
+            try {
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    length = channel.size();
+                    dirty = true;
+                }
+                long now = System.currentTimeMillis();
+                boolean force = durability == Durability.EVERY_SALE
+                        || (durability == Durability.INTERVAL && now - lastForce >= forceIntervalMillis)
+                        || shuttingDown;
+                if (dirty && force) {
+                    channel.force(false);
+                    lastForce = now;
+                    dirty = false;
+                }
+            } catch (IOException e) {
+                failed = true;
+                System.err.println("Error writing to sales log file: " + filePath + ". Error: " + e.getMessage());
+            }
+
+            synchronized (this) {
+                committedCount = batchEnd;
+                if (length >= 0) committedLength = length;
+                lastBatchFailed = failed;
+                notifyAll();
+                if (shuttingDown && pending.isEmpty()) break;
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing sales log file: " + filePath + ". Error: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<String> batch) throws IOException {
+        StringBuilder sb = new StringBuilder(batch.size() * 48);
+        for (String line : batch) {
+            sb.append(line).append(LINE_SEPARATOR);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes and forces everything still queued, then closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
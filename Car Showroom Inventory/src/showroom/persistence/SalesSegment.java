@@ -0,0 +1,113 @@
+package showroom.persistence;
+
+import showroom.model.CsvScanner;
+import showroom.model.FastTimestamp;
+
+/**
+ * One month of the sales log: a segment file (sales/sales-YYYY-MM.csv) plus its manifest entry.
+ * The time range, record count and revenue sum let range queries and reports skip or fully
+ * include a segment without reading its records. Loaded segments also know where their records
+ * start in the in-memory sales list; archived ones are no longer loaded at all.
+ */
+public class SalesSegment {
+    private final String month; // "YYYY-MM"
+    private long firstEpoch = Long.MAX_VALUE;
+    private long lastEpoch = Long.MIN_VALUE;
+    private int count;
+    private double revenue;
+    private boolean archived;
+    private int firstIndex = -1;
+
+    SalesSegment(String month) {
+        this.month = month;
+    }
+
+    public String getMonth() { return month; }
+    /** Earliest sale time, in FastTimestamp epoch seconds. */
+    public long getFirstEpoch() { return firstEpoch; }
+    /** Latest sale time, in FastTimestamp epoch seconds. */
+    public long getLastEpoch() { return lastEpoch; }
+    public int getCount() { return count; }
+    public double getRevenue() { return revenue; }
+    public boolean isArchived() { return archived; }
+
+    /**
+     * Position of this segment's first record in the loaded sales list, -1 if archived.
+     * A loaded segment's records are the contiguous range [firstIndex, firstIndex + count).
+     */
+    public int getFirstIndex() { return firstIndex; }
+
+    public boolean isEmpty() { return count == 0; }
+
+    /** True if no sale in this segment can fall inside [fromEpoch, toEpoch]. */
+    public boolean isOutside(long fromEpoch, long toEpoch) {
+        return count == 0 || lastEpoch < fromEpoch || firstEpoch > toEpoch;
+    }
+
+    /** True if every sale in this segment falls inside [fromEpoch, toEpoch]. */
+    public boolean isInside(long fromEpoch, long toEpoch) {
+        return count > 0 && firstEpoch >= fromEpoch && lastEpoch <= toEpoch;
+    }
+
+    String getFileName() {
+        return "sales-" + month + ".csv";
+    }
+
+    void record(long epochSecond, double price) {
+        if (epochSecond < firstEpoch) firstEpoch = epochSecond;
+        if (epochSecond > lastEpoch) lastEpoch = epochSecond;
+        count++;
+        revenue += price;
+    }
+
+    void reset(int firstIndex) {
+        this.firstIndex = firstIndex;
+        firstEpoch = Long.MAX_VALUE;
+        lastEpoch = Long.MIN_VALUE;
+        count = 0;
+        revenue = 0;
+    }
+
+    void setFirstIndex(int firstIndex) { this.firstIndex = firstIndex; }
+
+    void markArchived() {
+        archived = true;
+        firstIndex = -1;
+    }
+
+    // --- Manifest line: month,first,last,count,revenue,state ---
+
+    String toManifestLine() {
+        StringBuilder sb = new StringBuilder(80).append(month).append(',');
+        if (count > 0) {
+            FastTimestamp.appendTo(sb, firstEpoch).append(',');
+            FastTimestamp.appendTo(sb, lastEpoch).append(',');
+        } else {
+            sb.append(",,");
+        }
+        return sb.append(count).append(',').append(revenue).append(',').append(archived ? "archived" : "live").toString();
+    }
+
+    static SalesSegment fromManifestLine(CsvScanner scanner) {
+        String month = scanner.next() ? scanner.text() : null;
+        SalesSegment segment = new SalesSegment(month);
+        boolean empty = scanner.next() && scanner.isEmptyField();
+        long first = empty ? 0 : scanner.timestampValue();
+        long last = scanner.next() && !empty ? scanner.timestampValue() : 0;
+        int count = scanner.next() ? scanner.intValue() : 0;
+        double revenue = scanner.next() ? scanner.doubleValue() : 0;
+        String state = scanner.next() ? scanner.text() : null;
+        if (scanner.failed() || month == null || month.length() != 7) {
+            System.err.println("Error parsing sales manifest line: " + scanner.lineText() + ". Error: " + scanner.error());
+            return null;
+        }
+        if (count > 0 && !empty) {
+            segment.firstEpoch = first;
+            segment.lastEpoch = last;
+            segment.count = count;
+            segment.revenue = revenue;
+        }
+        if ("archived".equals(state)) segment.archived = true;
+        return segment;
+    }
+}
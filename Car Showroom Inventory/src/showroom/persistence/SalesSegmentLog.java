@@ -0,0 +1,410 @@
+package showroom.persistence;
+
+import showroom.model.CsvScanner;
+import showroom.model.SaleModel;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The sales log split into monthly segment files under data/sales/, plus manifest.csv recording
+ * each segment's time range, record count and revenue sum.
+ *
+ * Sales are appended to the newest ("hot") segment through a group-commit {@link SalesLogWriter};
+ * a sale from a later month seals the hot segment and starts a new one. A sale whose month is
+ * earlier than the hot segment's (clock change) stays in the hot segment and just widens its
+ * time range, so every loaded segment is one contiguous run of the in-memory sales list.
+ * Older segments can be archived (moved to sales/archive/ and no longer loaded) without touching
+ * the hot one; their manifest entries are kept so totals still include them.
+ *
+ * The manifest is a cache: stats of every segment that is loaded by parsing are recomputed,
+ * and segment files missing from it (crash right after a roll) are picked up from the directory.
+ */
+public class SalesSegmentLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "sales-";
+    private static final String SEGMENT_SUFFIX = ".csv";
+
+    private final Path directory;
+    private final Path archiveDirectory;
+    private final Path legacyPath;
+    private final SnapshotWriter manifestWriter;
+    private final CsvScanner scanner = new CsvScanner();
+
+    // Ordered by month; archived segments first
+    private final List<SalesSegment> segments = new ArrayList<>();
+    private SalesSegment hot;
+    private SalesLogWriter hotWriter;
+    private long manifestVersion;
+    private int nextIndex; // Position the next appended sale takes in the in-memory sales list
+
+    /**
+     * @param directory  the data/sales folder holding the segments and the manifest
+     * @param legacyPath the single sales_log.csv of older versions, migrated into segments on first load
+     */
+    public SalesSegmentLog(Path directory, Path legacyPath) {
+        this.directory = directory;
+        this.archiveDirectory = directory.resolve("archive");
+        this.legacyPath = legacyPath;
+        this.manifestWriter = new SnapshotWriter(directory.resolve("manifest.csv"), null);
+    }
+
+    // --- Loading ---
+
+    /**
+     * Loads every live segment, oldest first, into the given list. When the binary snapshot still
+     * matches the hot segment and the sealed segments it covered, only the hot segment's tail is parsed.
+     */
+    public synchronized void load(List<SaleModel> sales, BinarySnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        boolean manifestComplete = readManifest();
+        if (Files.exists(legacyPath)) {
+            migrateLegacyLog(manifestComplete);
+            manifestComplete = true;
+        }
+        manifestComplete &= discoverSegmentFiles();
+
+        List<SalesSegment> live = getLiveSegments();
+        hot = live.isEmpty() ? null : live.get(live.size() - 1);
+        if (hot != null && manifestComplete && snapshot != null && loadFromSnapshot(sales, snapshot, live)) {
+            System.out.println("Sales log: " + snapshot.getSales().size() + " records from binary snapshot, "
+                    + (sales.size() - snapshot.getSales().size()) + " from the tail of " + hot.getFileName() + ".");
+        } else {
+            for (SalesSegment segment : live) {
+                int firstIndex = sales.size();
+                sales.addAll(SalesLogLoader.load(directory.resolve(segment.getFileName())));
+                recount(segment, sales, firstIndex);
+            }
+        }
+
+        nextIndex = sales.size();
+        if (hot != null) openHotWriter();
+        writeManifest();
+        System.out.println("Sales segments: " + live.size() + " live, " + (segments.size() - live.size()) + " archived.");
+    }
+
+    /**
+     * Reads the sales load() would, without creating, migrating or moving anything: the legacy
+     * sales_log.csv while it has not been migrated, otherwise the live segment files, oldest first.
+     */
+    public static void readLive(Path directory, Path legacyPath, List<SaleModel> sales) throws IOException {
+        Path manifestPath = directory.resolve("manifest.csv");
+        boolean migrated = Files.exists(manifestPath);
+        if (migrated) {
+            CsvScanner scanner = new CsvScanner();
+            for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty() && SalesSegment.fromManifestLine(scanner.reset(line)) == null) migrated = false;
+            }
+        }
+        if (!migrated && Files.exists(legacyPath) && Files.size(legacyPath) > 0) {
+            sales.addAll(SalesLogLoader.load(legacyPath));
+            return;
+        }
+        if (!Files.isDirectory(directory)) return;
+        // Archived segments live in archive/, so every segment file here is live; names sort by month
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.length() == SEGMENT_PREFIX.length() + 7 + SEGMENT_SUFFIX.length()) files.add(file);
+            }
+        }
+        files.sort(null);
+        for (Path file : files) {
+            sales.addAll(SalesLogLoader.load(file));
+        }
+    }
+
+    private boolean loadFromSnapshot(List<SaleModel> sales, BinarySnapshot snapshot, List<SalesSegment> live) throws IOException {
+        List<SaleModel> snapshotSales = snapshot.getSales();
+        int sealedCount = 0;
+        for (SalesSegment segment : live) {
+            if (segment != hot) sealedCount += segment.getCount();
+        }
+        if (sealedCount > snapshotSales.size() || !snapshot.matchesSalesLog(directory.resolve(hot.getFileName()))) return false;
+        // Segments archived after the snapshot was taken would still be at its front
+        if (!snapshotSales.isEmpty() && monthOf(snapshotSales.get(0)).compareTo(live.get(0).getMonth()) < 0) return false;
+
+        sales.addAll(snapshotSales);
+        sales.addAll(SalesLogLoader.load(directory.resolve(hot.getFileName()), snapshot.getSalesLogLength()));
+        int index = 0;
+        for (SalesSegment segment : live) {
+            if (segment == hot) break;
+            segment.setFirstIndex(index);
+            index += segment.getCount();
+        }
+        recount(hot, sales, index);
+        return true;
+    }
+
+    private static void recount(SalesSegment segment, List<SaleModel> sales, int firstIndex) {
+        segment.reset(firstIndex);
+        for (int i = firstIndex; i < sales.size(); i++) {
+            SaleModel sale = sales.get(i);
+            segment.record(sale.getTimestamp().toEpochSecond(ZoneOffset.UTC), sale.getSalePrice());
+        }
+    }
+
+    // Returns false if the manifest is missing or unreadable
+    private boolean readManifest() throws IOException {
+        Path manifestPath = directory.resolve("manifest.csv");
+        if (!Files.exists(manifestPath)) return false;
+        boolean complete = true;
+        for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) continue;
+            SalesSegment segment = SalesSegment.fromManifestLine(scanner.reset(line));
+            if (segment == null) {
+                complete = false;
+            } else if (find(segment.getMonth()) == null) {
+                segments.add(segment);
+            }
+        }
+        sortSegments();
+        return complete;
+    }
+
+    // Adds live segment files the manifest does not list; returns false if there were any
+    private boolean discoverSegmentFiles() throws IOException {
+        boolean none = true;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String month = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                if (month.length() == 7 && find(month) == null) {
+                    System.out.println("Found sales segment missing from the manifest: " + name);
+                    segments.add(new SalesSegment(month));
+                    none = false;
+                }
+            }
+        }
+        sortSegments();
+        return none;
+    }
+
+    // Splits the old single sales_log.csv into monthly segments, then moves it aside
+    private void migrateLegacyLog(boolean alreadyMigrated) throws IOException {
+        Path moved = legacyPath.resolveSibling(legacyPath.getFileName() + ".migrated");
+        if (!alreadyMigrated && Files.size(legacyPath) > 0) {
+            List<SaleModel> legacy = SalesLogLoader.load(legacyPath);
+            System.out.println("Migrating " + legacy.size() + " sales from " + legacyPath + " into monthly segments.");
+            segments.removeIf(s -> !s.isArchived());
+            SalesSegment current = null;
+            BufferedWriter out = null;
+            try {
+                for (SaleModel sale : legacy) {
+                    String month = monthOf(sale);
+                    if (current == null || month.compareTo(current.getMonth()) > 0) {
+                        if (out != null) out.close();
+                        current = new SalesSegment(month);
+                        segments.add(current);
+                        // Truncates a partial segment left by an interrupted earlier migration
+                        out = Files.newBufferedWriter(directory.resolve(current.getFileName()), StandardCharsets.UTF_8);
+                    }
+                    out.write(sale.toString());
+                    out.newLine();
+                    current.record(sale.getTimestamp().toEpochSecond(ZoneOffset.UTC), sale.getSalePrice());
+                }
+            } finally {
+                if (out != null) out.close();
+            }
+            sortSegments();
+            // The old file is only moved aside once the manifest describing its replacement is durable
+            writeManifest();
+            manifestWriter.flush();
+        } else if (alreadyMigrated) {
+            System.out.println("Sales log was already migrated to segments, moving it aside: " + legacyPath);
+        }
+        Files.move(legacyPath, moved, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // --- Appending ---
+
+    /**
+     * Appends a sale to the hot segment, starting a new segment when the sale is from a later month.
+     * The sale is expected to have been added to the end of the in-memory sales list.
+     */
+    public synchronized void append(SaleModel sale) {
+        String month = monthOf(sale);
+        if (hot == null || month.compareTo(hot.getMonth()) > 0) {
+            roll(month, nextIndex);
+        }
+        nextIndex++;
+        hot.record(sale.getTimestamp().toEpochSecond(ZoneOffset.UTC), sale.getSalePrice());
+        if (hotWriter != null && hotWriter.append(sale.toString())) return;
+
+        Path hotPath = getHotPath();
+        System.out.println("Appending sale to: " + hotPath); // Debugging
+        // Fallback when the long-lived writer is unavailable: append with a one-off writer
+        try (FileWriter fw = new FileWriter(hotPath.toFile(), true);
+             BufferedWriter bw = new BufferedWriter(fw)) {
+            bw.write(sale.toString());
+            bw.newLine();
+        } catch (IOException e) {
+            System.err.println("Error writing to sales segment: " + hotPath + ". Error: " + e.getMessage());
+        }
+    }
+
+    private void roll(String month, int firstIndex) {
+        closeHotWriter();
+        hot = find(month);
+        if (hot == null) {
+            hot = new SalesSegment(month);
+            segments.add(hot);
+            sortSegments();
+        }
+        hot.reset(firstIndex);
+        System.out.println("Started sales segment " + hot.getFileName()); // Debugging
+        writeManifest(); // Records the sealed segment's final stats
+        openHotWriter();
+    }
+
+    private void openHotWriter() {
+        try {
+            hotWriter = SalesLogWriter.fromSystemProperties(getHotPath());
+            System.out.println("Sales log writer opened with durability " + hotWriter.getDurability());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not open sales log writer: " + getHotPath() + ". Error: " + e.getMessage());
+        }
+    }
+
+    private void closeHotWriter() {
+        if (hotWriter == null) return;
+        try {
+            hotWriter.close();
+        } catch (IOException e) {
+            System.err.println("Error closing sales log writer. Error: " + e.getMessage());
+        }
+        hotWriter = null;
+    }
+
+    /**
+     * The hot segment's length once every sale appended so far is written; does not wait for the writer.
+     */
+    public synchronized long getAppendedLength() throws IOException {
+        if (hot == null) return 0;
+        if (hotWriter != null) return hotWriter.getAppendedLength();
+        Path hotPath = getHotPath();
+        return Files.exists(hotPath) ? Files.size(hotPath) : 0;
+    }
+
+    /**
+     * Waits until every sale appended so far is written. The lock is not held while waiting, so
+     * sales appended meanwhile are not held up.
+     */
+    public void awaitWritten() {
+        SalesLogWriter writer;
+        synchronized (this) {
+            writer = hotWriter;
+        }
+        if (writer != null) writer.sync();
+    }
+
+    /**
+     * The file currently receiving sales, or null before the first sale.
+     */
+    public synchronized Path getHotPath() {
+        return hot == null ? null : directory.resolve(hot.getFileName());
+    }
+
+    // --- Segments ---
+
+    /**
+     * All segments, oldest first, including archived ones.
+     */
+    public synchronized List<SalesSegment> getSegments() {
+        return Collections.unmodifiableList(new ArrayList<>(segments));
+    }
+
+    /**
+     * Parses an archived segment's file from sales/archive/; the records are not kept.
+     */
+    public List<SaleModel> readArchived(SalesSegment segment) throws IOException {
+        if (!segment.isArchived()) throw new IOException("Sales segment " + segment.getMonth() + " is not archived");
+        return SalesLogLoader.load(archiveDirectory.resolve(segment.getFileName()));
+    }
+
+    private List<SalesSegment> getLiveSegments() {
+        List<SalesSegment> live = new ArrayList<>();
+        for (SalesSegment segment : segments) {
+            if (!segment.isArchived()) live.add(segment);
+        }
+        return live;
+    }
+
+    /**
+     * Moves every sealed segment older than the given month to sales/archive/. The hot segment is never archived.
+     *
+     * @return how many sales were archived; they are the first records of the in-memory sales list
+     */
+    public synchronized int archiveBefore(YearMonth month) {
+        String limit = month.toString();
+        int archived = 0;
+        try {
+            Files.createDirectories(archiveDirectory);
+            for (SalesSegment segment : getLiveSegments()) {
+                if (segment == hot || segment.getMonth().compareTo(limit) >= 0) break;
+                Path file = directory.resolve(segment.getFileName());
+                if (Files.exists(file)) {
+                    Files.move(file, archiveDirectory.resolve(segment.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                }
+                segment.markArchived();
+                archived += segment.getCount();
+                System.out.println("Archived sales segment " + segment.getFileName());
+            }
+        } catch (IOException e) {
+            System.err.println("Error archiving sales segments in: " + archiveDirectory + ". Error: " + e.getMessage());
+        }
+        if (archived > 0) {
+            nextIndex -= archived;
+            for (SalesSegment segment : getLiveSegments()) {
+                segment.setFirstIndex(segment.getFirstIndex() - archived);
+            }
+        }
+        writeManifest();
+        return archived;
+    }
+
+    private SalesSegment find(String month) {
+        for (SalesSegment segment : segments) {
+            if (segment.getMonth().equals(month)) return segment;
+        }
+        return null;
+    }
+
+    private void sortSegments() {
+        segments.sort((a, b) -> a.getMonth().compareTo(b.getMonth()));
+    }
+
+    private static String monthOf(SaleModel sale) {
+        return YearMonth.from(sale.getTimestamp()).toString();
+    }
+
+    private void writeManifest() {
+        List<String> lines = new ArrayList<>(segments.size());
+        for (SalesSegment segment : segments) {
+            lines.add(segment.toManifestLine());
+        }
+        manifestWriter.submit(lines, ++manifestVersion);
+    }
+
+    /**
+     * Forces the hot segment and writes the final manifest.
+     */
+    @Override
+    public synchronized void close() {
+        closeHotWriter();
+        writeManifest();
+        manifestWriter.close();
+    }
+}
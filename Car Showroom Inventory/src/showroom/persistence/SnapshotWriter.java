@@ -0,0 +1,189 @@
+package showroom.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes full file snapshots on a background persistence thread.
+ * Each snapshot goes to a temporary sibling file, is forced to disk and is then atomically
+ * renamed over the target, so a crash never leaves a half-written file and readers only ever
+ * see a complete old or new version. Snapshots submitted while one is being written are
+ * coalesced: only the newest pending one is written.
+ */
+public class SnapshotWriter implements Closeable {
+
+    /**
+     * Produces the full contents of one snapshot; called on the persistence thread.
+     */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path targetPath;
+    private final Path tempPath;
+    private final LongConsumer onDurable; // Receives the sequence number of each durable snapshot
+    private final Thread worker;
+
+    // Guarded by 'this'
+    private Content pendingContent;
+    private long pendingSeq;
+    private long submittedCount;
+    private long writtenCount;
+    private boolean closed;
+
+    public SnapshotWriter(Path targetPath, LongConsumer onDurable) {
+        this.targetPath = targetPath;
+        this.tempPath = targetPath.resolveSibling(targetPath.getFileName() + ".tmp");
+        this.onDurable = onDurable;
+
+        worker = new Thread(this::runWorker, "snapshot-writer-" + targetPath.getFileName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a snapshot without blocking on disk. Replaces any snapshot still waiting to be written.
+     *
+     * @param lines the complete file contents, one entry per line
+     * @param seq   an opaque sequence number handed to the durability callback once written
+     */
+    public void submit(List<String> lines, long seq) {
+        submit(out -> {
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (String line : lines) {
+                bw.write(line);
+                bw.newLine();
+            }
+            bw.flush();
+        }, seq);
+    }
+
+    /**
+     * Queues a snapshot whose bytes are produced by the given content on the persistence thread.
+     */
+    public synchronized void submit(Content content, long seq) {
+        if (closed) {
+            System.err.println("Snapshot submitted after close, ignoring: " + targetPath);
+            return;
+        }
+        pendingContent = content;
+        pendingSeq = seq;
+        submittedCount++;
+        notifyAll();
+    }
+
+    /**
+     * Blocks until every snapshot submitted so far has been written (or superseded and written).
+     */
+    public synchronized void flush() {
+        long target = submittedCount;
+        boolean interrupted = false;
+        while (writtenCount < target && worker.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void runWorker() {
+        while (true) {
+            Content content;
+            long seq;
+            long upTo;
+            synchronized (this) {
+                while (pendingContent == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                if (pendingContent == null) return; // Closed and fully drained
+                content = pendingContent;
+                seq = pendingSeq;
+                upTo = submittedCount;
+                pendingContent = null;
+            }
+
+            boolean written = writeAtomically(content);
+            if (written && onDurable != null) {
+                try {
+                    onDurable.accept(seq);
+                } catch (RuntimeException e) {
+                    System.err.println("Snapshot durability callback failed for " + targetPath + ". Error: " + e.getMessage());
+                }
+            }
+
+            synchronized (this) {
+                writtenCount = upTo;
+                notifyAll();
+            }
+        }
+    }
+
+    private boolean writeAtomically(Content content) {
+        try {
+            try (FileChannel ch = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BufferedOutputStream out = new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16);
+                content.writeTo(out);
+                out.flush();
+                ch.force(true);
+            }
+            try {
+                Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            forceDirectory();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing snapshot: " + targetPath + ". Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Makes the rename itself durable where the platform allows opening a directory
+    private void forceDirectory() {
+        Path dir = targetPath.toAbsolutePath().getParent();
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Not supported on every platform (e.g. Windows); the file contents are already forced
+        }
+    }
+
+    /**
+     * Writes the last pending snapshot, if any, and stops the persistence thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
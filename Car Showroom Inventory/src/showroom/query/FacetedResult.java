@@ -0,0 +1,67 @@
+package showroom.query;
+
+import showroom.index.FacetIndex.PriceBucket;
+import showroom.model.CarModel;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cars matching a faceted filter (or one page of them), together with the facet counts for the filter panel.
+ * Each count is what the user would get by changing only that facet: brand counts ignore the
+ * brand selection but respect the other facets, and likewise for price buckets and stock.
+ */
+public final class FacetedResult {
+    private final List<CarModel> cars;
+    private final Map<String, Integer> brandCounts;
+    private final Map<PriceBucket, Integer> priceBucketCounts;
+    private final int inStockCount;
+    private final int offset;
+    private final int totalCount;
+
+    public FacetedResult(List<CarModel> cars, Map<String, Integer> brandCounts,
+                         Map<PriceBucket, Integer> priceBucketCounts, int inStockCount) {
+        this(cars, brandCounts, priceBucketCounts, inStockCount, 0, cars.size());
+    }
+
+    public FacetedResult(List<CarModel> cars, Map<String, Integer> brandCounts,
+                         Map<PriceBucket, Integer> priceBucketCounts, int inStockCount, int offset, int totalCount) {
+        this.cars = cars;
+        this.brandCounts = brandCounts;
+        this.priceBucketCounts = priceBucketCounts;
+        this.inStockCount = inStockCount;
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    public List<CarModel> getCars() { return cars; }
+
+    /**
+     * Position of the first car of {@link #getCars()} within the whole result.
+     */
+    public int getOffset() { return offset; }
+
+    /**
+     * Number of cars matching the filter, of which {@link #getCars()} may be one page.
+     */
+    public int getTotalCount() { return totalCount; }
+
+    /**
+     * Brand -> matching cars, in brand order; brands without matches are left out unless selected.
+     */
+    public Map<String, Integer> getBrandCounts() { return brandCounts; }
+
+    /**
+     * Every price bucket -> matching cars, in price order.
+     */
+    public Map<PriceBucket, Integer> getPriceBucketCounts() { return priceBucketCounts; }
+
+    public int getInStockCount() { return inStockCount; }
+
+    /**
+     * Display text for a facet value, e.g. "BMW (42)".
+     */
+    public static String label(String value, int count) {
+        return value + " (" + count + ")";
+    }
+}
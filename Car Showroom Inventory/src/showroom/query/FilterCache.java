@@ -0,0 +1,189 @@
+package showroom.query;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bounded LRU cache of filter results, keyed by the normalized filter parameters.
+ * The cache is bounded both by entry count and by the total number of result rows it holds, so a
+ * few "show everything" results on a large inventory cannot pin unbounded memory.
+ *
+ * Invalidation is driven by a generation counter: the service calls {@link #invalidate()} only for
+ * mutations that can change which cars match a filter or their order (add, remove, a change of brand,
+ * model or price, or a car going in or out of stock). Cached lists hold the live car objects, so other
+ * changes such as a sale that leaves stock above zero show up without invalidating anything.
+ */
+public final class FilterCache<V> {
+    private final int maxEntries;
+    private final long maxRows;
+    private final LinkedHashMap<Key, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedRows;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    private static final class Entry<V> {
+        final V value;
+        final int rows;
+
+        Entry(V value, int rows) {
+            this.value = value;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Normalized filter parameters. Callers normalize the search text before building the key,
+     * so "BMW " and "bmw" share an entry.
+     */
+    public static final class Key {
+        private final String kind;
+        private final String query;
+        private final double minPrice;
+        private final double maxPrice;
+        private final boolean inStockOnly;
+        private final Set<?> brands;
+        private final Set<?> priceBuckets;
+        private final int offset;
+        private final int limit;
+
+        public Key(String kind, String query, double minPrice, double maxPrice, boolean inStockOnly,
+                   Set<?> brands, Set<?> priceBuckets) {
+            this(kind, query, minPrice, maxPrice, inStockOnly, brands, priceBuckets, 0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Key for one page [offset, offset + limit) of the result.
+         */
+        public Key(String kind, String query, double minPrice, double maxPrice, boolean inStockOnly,
+                   Set<?> brands, Set<?> priceBuckets, int offset, int limit) {
+            this.kind = kind;
+            this.query = query;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.inStockOnly = inStockOnly;
+            this.brands = Set.copyOf(brands);
+            this.priceBuckets = Set.copyOf(priceBuckets);
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return Double.compare(minPrice, k.minPrice) == 0 && Double.compare(maxPrice, k.maxPrice) == 0
+                    && inStockOnly == k.inStockOnly && offset == k.offset && limit == k.limit && kind.equals(k.kind) && query.equals(k.query)
+                    && brands.equals(k.brands) && priceBuckets.equals(k.priceBuckets);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, query, minPrice, maxPrice, inStockOnly, brands, priceBuckets, offset, limit);
+        }
+    }
+
+    /**
+     * Counters since the cache was created.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int entries;
+        private final long rows;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int entries, long rows) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.entries = entries;
+            this.rows = rows;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+        public int getEntries() { return entries; }
+        public long getRows() { return rows; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        public Stats plus(Stats other) {
+            return new Stats(hits + other.hits, misses + other.misses, evictions + other.evictions,
+                    invalidations + other.invalidations, entries + other.entries, rows + other.rows);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d (%.0f%% hit rate), entries=%d, rows=%d, evictions=%d, invalidations=%d",
+                    hits, misses, getHitRate() * 100, entries, rows, evictions, invalidations);
+        }
+    }
+
+    public FilterCache(int maxEntries, long maxRows) {
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * The cached value, or null on a miss.
+     */
+    public V get(Key key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Caches a result that holds the given number of rows; results larger than the row budget are not kept.
+     */
+    public void put(Key key, V value, int rows) {
+        if (maxEntries <= 0 || rows > maxRows) return;
+        Entry<V> old = entries.put(key, new Entry<>(value, rows));
+        if (old != null) cachedRows -= old.rows;
+        cachedRows += rows;
+        // Evict least recently used entries until both bounds hold
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || cachedRows > maxRows) && it.hasNext()) {
+            Entry<V> eldest = it.next();
+            cachedRows -= eldest.rows;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops every entry; called by the service after a mutation that can change filter results.
+     */
+    public void invalidate() {
+        generation++;
+        if (!entries.isEmpty()) invalidations++;
+        entries.clear();
+        cachedRows = 0;
+    }
+
+    /**
+     * Number of invalidations so far; results computed under an older generation are stale.
+     */
+    public long getGeneration() { return generation; }
+
+    public Stats getStats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size(), cachedRows);
+    }
+}
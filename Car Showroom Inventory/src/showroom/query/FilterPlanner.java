@@ -0,0 +1,97 @@
+package showroom.query;
+
+/**
+ * Chooses how {@code InventoryService.filterInventory} finds its candidate rows.
+ * Each index reports how many rows it would hand back for the query, and a small cost model
+ * weighs that against a sequential scan: visiting a row through an index costs more than the next
+ * row of a scan, and every surviving row still has its search text checked. The cheapest path wins.
+ */
+public final class FilterPlanner {
+
+    public enum Access {
+        FULL_SCAN,
+        PRICE_RANGE,
+        TEXT_INDEX,
+        IN_STOCK_BITMAP,
+        BRAND_INDEX
+    }
+
+    static final double SCAN_ROW_COST = 1;
+    static final double INDEX_ROW_COST = 2;       // Random access through an index slot
+    static final double TEXT_CHECK_COST = 1;      // contains() on the car's precomputed lowercased brand and model
+    // Tiny inventories are always scanned
+    static final int MIN_INDEXED_ROWS = 64;
+
+    /**
+     * The chosen access path and how many rows it is expected to visit.
+     */
+    public static final class Plan {
+        private final Access access;
+        private final int estimatedRows;
+
+        Plan(Access access, int estimatedRows) {
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+        }
+
+        public Access getAccess() { return access; }
+        public int getEstimatedRows() { return estimatedRows; }
+
+        @Override
+        public String toString() {
+            return access + " (~" + estimatedRows + " rows)";
+        }
+    }
+
+    private FilterPlanner() {
+    }
+
+    /**
+     * @param tableSize      cars in the inventory
+     * @param priceRangeRows cars inside the price band, as counted by the price index
+     * @param textRows       candidate rows the text index would check, or -1 when there is no search text
+     * @param inStockRows    cars in stock, as counted by the facet bitmap, or -1 when stock is not filtered
+     */
+    public static Plan choose(int tableSize, int priceRangeRows, int textRows, int inStockRows) {
+        return choose(tableSize, priceRangeRows, textRows, inStockRows, -1);
+    }
+
+    /**
+     * @param brandRows cars of the required brands, as listed by the brand index, or -1 when the brand is not restricted
+     */
+    public static Plan choose(int tableSize, int priceRangeRows, int textRows, int inStockRows, int brandRows) {
+        if (tableSize < MIN_INDEXED_ROWS) return new Plan(Access.FULL_SCAN, tableSize);
+
+        boolean hasText = textRows >= 0;
+        double textCheck = hasText ? TEXT_CHECK_COST : 0;
+        Plan best = new Plan(Access.FULL_SCAN, tableSize);
+        double bestCost = tableSize * (SCAN_ROW_COST + textCheck);
+
+        double priceCost = priceRangeRows * (INDEX_ROW_COST + textCheck);
+        if (priceCost < bestCost) {
+            best = new Plan(Access.PRICE_RANGE, priceRangeRows);
+            bestCost = priceCost;
+        }
+        if (inStockRows >= 0) {
+            double stockCost = inStockRows * (INDEX_ROW_COST + textCheck);
+            if (stockCost < bestCost) {
+                best = new Plan(Access.IN_STOCK_BITMAP, inStockRows);
+                bestCost = stockCost;
+            }
+        }
+        if (brandRows >= 0) {
+            double brandCost = brandRows * (INDEX_ROW_COST + textCheck);
+            if (brandCost < bestCost) {
+                best = new Plan(Access.BRAND_INDEX, brandRows);
+                bestCost = brandCost;
+            }
+        }
+        if (hasText) {
+            // Short queries report every row: the index then scans the names sequentially
+            double rowCost = textRows == tableSize ? SCAN_ROW_COST : INDEX_ROW_COST;
+            double textCost = textRows * (rowCost + TEXT_CHECK_COST);
+            if (textCost < bestCost) best = new Plan(Access.TEXT_INDEX, textRows);
+        }
+        return best;
+    }
+}
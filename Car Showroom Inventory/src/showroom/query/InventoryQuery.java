@@ -0,0 +1,158 @@
+package showroom.query;
+
+import showroom.model.CarModel;
+import showroom.query.QueryExpr.And;
+import showroom.query.QueryExpr.BrandIn;
+import showroom.query.QueryExpr.Const;
+import showroom.query.QueryExpr.Field;
+import showroom.query.QueryExpr.Match;
+import showroom.query.QueryExpr.Range;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed, optimized and compiled search query for the inventory, e.g.
+ * {@code brand:BMW price<3e7 qty>=2 model~"X"}.
+ *
+ * <ul>
+ *   <li>{@code brand:BMW} / {@code model=X5} - case-insensitive equality; {@code !=} negates it</li>
+ *   <li>{@code model~"X"} / {@code brand~X} - that field alone contains the text, case-insensitively</li>
+ *   <li>{@code price<3e7}, {@code price>=12.5L}, {@code price:10L..1Cr} - price bounds and ranges;
+ *       numbers take k, L (lakh) and Cr (crore) units</li>
+ *   <li>{@code qty>=2}, {@code stock:0} - quantity in stock</li>
+ *   <li>a bare word or "quoted text" - brand or model contains it, like the plain search box</li>
+ *   <li>terms are ANDed; {@code OR}, {@code NOT} (or a leading {@code -}) and parentheses combine them</li>
+ * </ul>
+ *
+ * Parsing builds a {@link QueryExpr} tree, {@link QueryOptimizer} simplifies it and
+ * {@link QueryCompiler} turns it into a predicate once, so filtering a row runs only the
+ * comparisons themselves. The top-level terms are also exposed as hints (price band, brands,
+ * substrings, stock) from which the service picks an index to read candidates from.
+ */
+public final class InventoryQuery {
+
+    // A field comparison or an operator keyword marks text as a query rather than a plain search
+    private static final Pattern QUERY_SYNTAX = Pattern.compile(
+            "(?i:\\b(?:brand|model|price|qty|quantity|stock)\\s*(?::|=|~|<|>|!=))|\\b(?:AND|OR|NOT)\\b");
+
+    private final QueryExpr expression;
+    private final Predicate<CarModel> predicate;
+    private final String canonical;
+
+    private double priceMin = Double.NEGATIVE_INFINITY;
+    private double priceMax = Double.POSITIVE_INFINITY;
+    private Set<String> brands;
+    private final List<String> substrings = new ArrayList<>();
+    private boolean inStockOnly;
+    private final boolean usesQuantity;
+
+    private InventoryQuery(QueryExpr expression) {
+        this.expression = expression;
+        this.predicate = QueryCompiler.compile(expression);
+        this.canonical = expression.toString();
+        this.usesQuantity = mentions(expression, Field.QTY);
+
+        List<QueryExpr> terms = expression instanceof And
+                ? ((And) expression).getOperands()
+                : Collections.singletonList(expression);
+        for (QueryExpr term : terms) {
+            if (term instanceof Range) {
+                Range r = (Range) term;
+                if (r.getField() == Field.PRICE) {
+                    priceMin = r.getMin();
+                    priceMax = r.getMax();
+                } else if (r.getMin() >= 1) {
+                    inStockOnly = true;
+                }
+            } else if (term instanceof BrandIn) {
+                brands = ((BrandIn) term).getBrands();
+            } else if (term instanceof Match && ((Match) term).isContains()) {
+                substrings.add(((Match) term).getValue());
+            }
+        }
+    }
+
+    /**
+     * Parses, optimizes and compiles the query text.
+     *
+     * @throws QuerySyntaxException if the text is not a valid query
+     */
+    public static InventoryQuery parse(String text) {
+        return new InventoryQuery(QueryOptimizer.optimize(QueryParser.parse(text)));
+    }
+
+    /**
+     * Whether the text uses query syntax (a field comparison or AND / OR / NOT) rather than being a
+     * plain brand/model search, which the search box keeps treating as one substring.
+     */
+    public static boolean looksLikeQuery(String text) {
+        return QUERY_SYNTAX.matcher(text).find();
+    }
+
+    public boolean test(CarModel car) {
+        return predicate.test(car);
+    }
+
+    public Predicate<CarModel> getPredicate() { return predicate; }
+
+    public QueryExpr getExpression() { return expression; }
+
+    /**
+     * True when the optimizer proved that no car can match, e.g. {@code price>5Cr price<1Cr}.
+     */
+    public boolean isNeverTrue() {
+        return expression instanceof Const && !((Const) expression).getValue();
+    }
+
+    /**
+     * Lower bound of a price range every match must fall in (may be exclusive in the query itself).
+     */
+    public double getPriceMin() { return priceMin; }
+
+    public double getPriceMax() { return priceMax; }
+
+    /**
+     * Case-folded brands every match must have one of, or null when the brand is not restricted.
+     */
+    public Set<String> getBrands() { return brands; }
+
+    /**
+     * Lowercased texts every match must contain in its brand or model.
+     */
+    public List<String> getSubstrings() { return Collections.unmodifiableList(substrings); }
+
+    /**
+     * Whether every match must be in stock.
+     */
+    public boolean isInStockOnly() { return inStockOnly; }
+
+    /**
+     * Whether the query looks at quantities; such results change with every sale.
+     */
+    public boolean usesQuantity() { return usesQuantity; }
+
+    private static boolean mentions(QueryExpr expr, Field field) {
+        if (expr instanceof Range) return ((Range) expr).getField() == field;
+        if (expr instanceof QueryExpr.Not) return mentions(((QueryExpr.Not) expr).getOperand(), field);
+        List<QueryExpr> operands = expr instanceof And ? ((And) expr).getOperands()
+                : expr instanceof QueryExpr.Or ? ((QueryExpr.Or) expr).getOperands()
+                : Collections.emptyList();
+        for (QueryExpr e : operands) {
+            if (mentions(e, field)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The optimized query in query syntax; equivalent queries usually print the same.
+     */
+    @Override
+    public String toString() {
+        return canonical;
+    }
+}
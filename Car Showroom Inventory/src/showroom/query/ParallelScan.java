@@ -0,0 +1,149 @@
+package showroom.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Size-aware execution for the service's scans and aggregates. Work is cut into fixed-size blocks;
+ * below the threshold (or on a single-core machine) the blocks run one after another,
+ * above it they run on the fork-join common pool. Either way block results are combined in block
+ * order, so filters keep their row order and sums add up in the same order: both paths return
+ * exactly the same result.
+ *
+ * The threshold can be tuned per machine with -Dshowroom.parallel.threshold; run
+ * {@code showroom.main.ParallelCalibration} on the target machine to find the break-even size.
+ */
+public final class ParallelScan {
+    static final int BLOCK = 4096; // Rows per block; fixed so the combine order never depends on the thread count
+
+    private static volatile int threshold = Integer.getInteger("showroom.parallel.threshold", 32_768);
+
+    private ParallelScan() {
+    }
+
+    public static int getThreshold() { return threshold; }
+
+    /**
+     * Overrides the row count from which the parallel path is used (the calibration run switches it).
+     */
+    public static void setThreshold(int rows) {
+        threshold = rows;
+    }
+
+    public static boolean isParallel(int rows) {
+        return rows >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    // Runs body(block) for every block in [0, blocks), in parallel when the row count warrants it
+    private static void forEachBlock(int rows, int blocks, BlockBody body) {
+        if (blocks <= 1 || !isParallel(rows)) {
+            for (int b = 0; b < blocks; b++) body.run(b);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new BlockTask(0, blocks, body));
+    }
+
+    @FunctionalInterface
+    private interface BlockBody {
+        void run(int block);
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final BlockBody body;
+
+        BlockTask(int from, int to, BlockBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.run(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BlockTask(from, mid, body), new BlockTask(mid, to, body));
+        }
+    }
+
+    private static int blockCount(int rows) {
+        return (rows + BLOCK - 1) / BLOCK;
+    }
+
+    /**
+     * Rows from..to-1 (read through rowAt) that pass the test, in row order.
+     */
+    public static <T> List<T> filter(int from, int to, IntFunction<T> rowAt, Predicate<? super T> test) {
+        int rows = Math.max(0, to - from);
+        int blocks = blockCount(rows);
+        List<List<T>> parts = new ArrayList<>(Collections.nCopies(blocks, null)); // Each block sets only its own slot
+        forEachBlock(rows, blocks, b -> {
+            int start = from + b * BLOCK;
+            int end = Math.min(to, start + BLOCK);
+            List<T> part = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                T row = rowAt.apply(i);
+                if (test.test(row)) part.add(row);
+            }
+            parts.set(b, part);
+        });
+        int total = 0;
+        for (List<T> part : parts) total += part.size();
+        List<T> result = new ArrayList<>(total);
+        for (List<T> part : parts) result.addAll(part);
+        return result;
+    }
+
+    public static <T> List<T> filter(List<T> rows, Predicate<? super T> test) {
+        return filter(0, rows.size(), rows::get, test);
+    }
+
+    /**
+     * Sum of f over the rows, added block by block in row order.
+     */
+    public static <T> double sum(List<T> rows, ToDoubleFunction<? super T> f) {
+        int blocks = blockCount(rows.size());
+        double[] partial = new double[blocks];
+        forEachBlock(rows.size(), blocks, b -> {
+            double s = 0;
+            for (int i = b * BLOCK, end = Math.min(rows.size(), i + BLOCK); i < end; i++) {
+                s += f.applyAsDouble(rows.get(i));
+            }
+            partial[b] = s;
+        });
+        double total = 0;
+        for (double s : partial) total += s;
+        return total;
+    }
+
+    /**
+     * Sorts the list in place; large lists use the stable parallel merge sort, so equal elements
+     * keep their relative order just as with {@link List#sort}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(List<T> list, Comparator<? super T> order) {
+        if (!isParallel(list.size())) {
+            list.sort(order);
+            return;
+        }
+        T[] array = (T[]) list.toArray();
+        Arrays.parallelSort(array, order);
+        for (int i = 0; i < array.length; i++) {
+            list.set(i, array[i]);
+        }
+    }
+}
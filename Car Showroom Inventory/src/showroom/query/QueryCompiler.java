@@ -0,0 +1,144 @@
+package showroom.query;
+
+import showroom.model.CarModel;
+import showroom.query.QueryExpr.And;
+import showroom.query.QueryExpr.BrandIn;
+import showroom.query.QueryExpr.Const;
+import showroom.query.QueryExpr.Field;
+import showroom.query.QueryExpr.Match;
+import showroom.query.QueryExpr.Not;
+import showroom.query.QueryExpr.Or;
+import showroom.query.QueryExpr.Range;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Turns an optimized query into a tree of predicates, once per query. Every decision an interpreter
+ * would repeat per car (which node kind, which field, which operator, which bounds are open,
+ * how many operands) is taken here, and each node becomes a lambda that only does its own
+ * comparison on the car's precomputed keys.
+ */
+final class QueryCompiler {
+
+    private QueryCompiler() {
+    }
+
+    static Predicate<CarModel> compile(QueryExpr expr) {
+        if (expr instanceof Const) {
+            return ((Const) expr).getValue() ? car -> true : car -> false;
+        }
+        if (expr instanceof Range) {
+            Range r = (Range) expr;
+            return r.getField() == Field.QTY ? quantity(r) : price(r);
+        }
+        if (expr instanceof Match) return match((Match) expr);
+        if (expr instanceof BrandIn) {
+            Set<String> brands = ((BrandIn) expr).getBrands();
+            if (brands.size() == 1) {
+                String brand = brands.iterator().next();
+                return car -> brand.equals(car.getFoldedBrand());
+            }
+            Set<String> set = new HashSet<>(brands);
+            return car -> set.contains(car.getFoldedBrand());
+        }
+        if (expr instanceof Not) {
+            Predicate<CarModel> operand = compile(((Not) expr).getOperand());
+            return car -> !operand.test(car);
+        }
+        if (expr instanceof And) return and(((And) expr).getOperands());
+        if (expr instanceof Or) return or(((Or) expr).getOperands());
+        throw new IllegalArgumentException("Unknown query node: " + expr);
+    }
+
+    private static Predicate<CarModel> price(Range r) {
+        double min = r.getMin();
+        double max = r.getMax();
+        if (!r.hasMax()) {
+            return r.isMinInclusive() ? car -> car.getPrice() >= min : car -> car.getPrice() > min;
+        }
+        if (!r.hasMin()) {
+            return r.isMaxInclusive() ? car -> car.getPrice() <= max : car -> car.getPrice() < max;
+        }
+        if (r.isMinInclusive() && r.isMaxInclusive()) {
+            return car -> {
+                double p = car.getPrice();
+                return p >= min && p <= max;
+            };
+        }
+        boolean minInclusive = r.isMinInclusive();
+        boolean maxInclusive = r.isMaxInclusive();
+        return car -> {
+            double p = car.getPrice();
+            return (minInclusive ? p >= min : p > min) && (maxInclusive ? p <= max : p < max);
+        };
+    }
+
+    // The optimizer leaves quantity ranges with whole, inclusive bounds
+    private static Predicate<CarModel> quantity(Range r) {
+        if (!r.hasMax()) {
+            if (r.getMin() > Integer.MAX_VALUE) return car -> false;
+            int min = (int) Math.max(r.getMin(), Integer.MIN_VALUE);
+            return car -> car.getQuantity() >= min;
+        }
+        if (r.getMax() < Integer.MIN_VALUE) return car -> false;
+        int max = (int) Math.min(r.getMax(), Integer.MAX_VALUE);
+        if (!r.hasMin()) return car -> car.getQuantity() <= max;
+        int min = (int) Math.max(r.getMin(), Integer.MIN_VALUE);
+        if (min == max) return car -> car.getQuantity() == min;
+        return car -> {
+            int q = car.getQuantity();
+            return q >= min && q <= max;
+        };
+    }
+
+    private static Predicate<CarModel> match(Match m) {
+        String value = m.getValue();
+        if (m.isContains()) {
+            switch (m.getField()) {
+                case BRAND: return car -> car.getSearchBrand().contains(value);
+                case MODEL: return car -> car.getSearchModel().contains(value);
+                default: return car -> car.getSearchBrand().contains(value) || car.getSearchModel().contains(value);
+            }
+        }
+        // Equality (brand or model only): the value is case-folded, compared like the brand+model lookup does
+        if (m.getField() == Field.BRAND) return car -> value.equals(car.getFoldedBrand());
+        return car -> car.getModel().equalsIgnoreCase(value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array of predicates
+    private static Predicate<CarModel> and(List<QueryExpr> operands) {
+        if (operands.size() == 2) {
+            Predicate<CarModel> a = compile(operands.get(0));
+            Predicate<CarModel> b = compile(operands.get(1));
+            return car -> a.test(car) && b.test(car);
+        }
+        Predicate<CarModel>[] tests = new Predicate[operands.size()];
+        for (int i = 0; i < tests.length; i++) tests[i] = compile(operands.get(i));
+        return car -> {
+            for (Predicate<CarModel> test : tests) {
+                if (!test.test(car)) return false;
+            }
+            return true;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array of predicates
+    private static Predicate<CarModel> or(List<QueryExpr> operands) {
+        if (operands.size() == 2) {
+            Predicate<CarModel> a = compile(operands.get(0));
+            Predicate<CarModel> b = compile(operands.get(1));
+            return car -> a.test(car) || b.test(car);
+        }
+        Predicate<CarModel>[] tests = new Predicate[operands.size()];
+        for (int i = 0; i < tests.length; i++) tests[i] = compile(operands.get(i));
+        return car -> {
+            for (Predicate<CarModel> test : tests) {
+                if (test.test(car)) return true;
+            }
+            return false;
+        };
+    }
+}
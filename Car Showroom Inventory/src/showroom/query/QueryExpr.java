@@ -0,0 +1,244 @@
+package showroom.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Syntax tree of an inventory search query (see {@link InventoryQuery}). Nodes are immutable;
+ * {@link #toString()} prints them back in query syntax (constants print as "*" and "-*"), so an
+ * optimized tree doubles as the canonical form of the query.
+ */
+public abstract class QueryExpr {
+
+    public enum Field {
+        BRAND("brand"),
+        MODEL("model"),
+        TEXT(""),       // Bare words: brand or model, like the plain search box
+        PRICE("price"),
+        QTY("qty");
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        public boolean isNumeric() { return this == PRICE || this == QTY; }
+    }
+
+    QueryExpr() {
+    }
+
+    // Relative cost of evaluating the node for one car; the optimizer runs cheap tests first
+    abstract int cost();
+
+    /**
+     * Always true or always false, e.g. after the optimizer finds an empty price range.
+     */
+    public static final class Const extends QueryExpr {
+        static final Const TRUE = new Const(true);
+        static final Const FALSE = new Const(false);
+
+        private final boolean value;
+
+        private Const(boolean value) {
+            this.value = value;
+        }
+
+        public boolean getValue() { return value; }
+
+        @Override int cost() { return 0; }
+
+        @Override
+        public String toString() {
+            return value ? "*" : "-*";
+        }
+    }
+
+    /**
+     * Numeric interval on price or quantity; an open side is an infinite bound.
+     */
+    public static final class Range extends QueryExpr {
+        private final Field field;
+        private final double min;
+        private final boolean minInclusive;
+        private final double max;
+        private final boolean maxInclusive;
+
+        Range(Field field, double min, boolean minInclusive, double max, boolean maxInclusive) {
+            this.field = field;
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+        }
+
+        public Field getField() { return field; }
+        public double getMin() { return min; }
+        public boolean isMinInclusive() { return minInclusive; }
+        public double getMax() { return max; }
+        public boolean isMaxInclusive() { return maxInclusive; }
+
+        boolean hasMin() { return min != Double.NEGATIVE_INFINITY; }
+        boolean hasMax() { return max != Double.POSITIVE_INFINITY; }
+
+        boolean isEmpty() {
+            return min > max || (min == max && !(minInclusive && maxInclusive));
+        }
+
+        @Override int cost() { return 1; }
+
+        @Override
+        public String toString() {
+            String name = field.getName();
+            if (hasMin() && hasMax() && min == max) return name + ":" + number(min);
+            if (hasMin() && hasMax() && minInclusive && maxInclusive) {
+                return name + ":" + number(min) + ".." + number(max);
+            }
+            String low = hasMin() ? name + (minInclusive ? ">=" : ">") + number(min) : null;
+            String high = hasMax() ? name + (maxInclusive ? "<=" : "<") + number(max) : null;
+            if (low == null) return high != null ? high : "*";
+            return high == null ? low : low + " " + high;
+        }
+    }
+
+    /**
+     * Case-insensitive equality or substring test on brand, model, or (for bare words) either.
+     * Values are kept in the normalized form they are compared in.
+     */
+    public static final class Match extends QueryExpr {
+        private final Field field;
+        private final boolean contains;
+        private final String value;
+
+        Match(Field field, boolean contains, String value) {
+            this.field = field;
+            this.contains = contains;
+            this.value = value;
+        }
+
+        public Field getField() { return field; }
+        public boolean isContains() { return contains; }
+        public String getValue() { return value; }
+
+        @Override int cost() { return contains ? 3 : 2; }
+
+        @Override
+        public String toString() {
+            if (field == Field.TEXT) return quote(value);
+            return field.getName() + (contains ? "~" : ":") + quote(value);
+        }
+    }
+
+    /**
+     * Brand equal to one of a set of (case-folded) brands; what brand equalities become after optimizing.
+     */
+    public static final class BrandIn extends QueryExpr {
+        private final Set<String> brands;
+
+        BrandIn(Set<String> brands) {
+            this.brands = Collections.unmodifiableSet(new TreeSet<>(brands));
+        }
+
+        public Set<String> getBrands() { return brands; }
+
+        @Override int cost() { return 2; }
+
+        @Override
+        public String toString() {
+            List<String> terms = new ArrayList<>();
+            for (String brand : brands) terms.add("brand:" + quote(brand));
+            return terms.size() == 1 ? terms.get(0) : "(" + String.join(" OR ", terms) + ")";
+        }
+    }
+
+    public static final class Not extends QueryExpr {
+        private final QueryExpr operand;
+
+        Not(QueryExpr operand) {
+            this.operand = operand;
+        }
+
+        public QueryExpr getOperand() { return operand; }
+
+        @Override int cost() { return operand.cost(); }
+
+        @Override
+        public String toString() {
+            // A two-sided range prints as two terms, so it is grouped like AND and OR
+            boolean single = operand instanceof Match || operand instanceof BrandIn || operand instanceof Const
+                    || operand instanceof Range && !(((Range) operand).hasMin() && ((Range) operand).hasMax());
+            return "NOT " + (single || operand.toString().indexOf(' ') < 0 ? operand.toString() : "(" + operand + ")");
+        }
+    }
+
+    public static final class And extends QueryExpr {
+        private final List<QueryExpr> operands;
+
+        And(List<QueryExpr> operands) {
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        public List<QueryExpr> getOperands() { return operands; }
+
+        @Override
+        int cost() {
+            int sum = 0;
+            for (QueryExpr e : operands) sum += e.cost();
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            List<String> terms = new ArrayList<>();
+            for (QueryExpr e : operands) terms.add(e instanceof Or ? "(" + e + ")" : e.toString());
+            return String.join(" ", terms);
+        }
+    }
+
+    public static final class Or extends QueryExpr {
+        private final List<QueryExpr> operands;
+
+        Or(List<QueryExpr> operands) {
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        public List<QueryExpr> getOperands() { return operands; }
+
+        @Override
+        int cost() {
+            int sum = 0;
+            for (QueryExpr e : operands) sum += e.cost();
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            List<String> terms = new ArrayList<>();
+            for (QueryExpr e : operands) terms.add(e instanceof And ? "(" + e + ")" : e.toString());
+            return String.join(" OR ", terms);
+        }
+    }
+
+    static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    // Quotes values that would otherwise read as another token; a leading '*' is quoted so text can
+    // never print like the constants "*" and "-*", which would make two queries share a cache key
+    static String quote(String value) {
+        boolean plain = !value.isEmpty();
+        for (int i = 0; i < value.length() && plain; i++) {
+            char c = value.charAt(i);
+            plain = !Character.isWhitespace(c) && "()\"':=~<>!".indexOf(c) < 0;
+        }
+        if (plain && !(value.startsWith("-") || value.startsWith("*") || QueryParser.isKeyword(value))) return value;
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
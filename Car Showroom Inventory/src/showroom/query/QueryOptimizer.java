@@ -0,0 +1,223 @@
+package showroom.query;
+
+import showroom.query.QueryExpr.And;
+import showroom.query.QueryExpr.BrandIn;
+import showroom.query.QueryExpr.Const;
+import showroom.query.QueryExpr.Field;
+import showroom.query.QueryExpr.Match;
+import showroom.query.QueryExpr.Not;
+import showroom.query.QueryExpr.Or;
+import showroom.query.QueryExpr.Range;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a parsed query into an equivalent, cheaper one:
+ * <ul>
+ *   <li>nested AND / OR are flattened, double negations and constants folded, duplicates dropped;</li>
+ *   <li>price and quantity bounds under one AND are merged into a single range per field (and
+ *       overlapping ranges under an OR into one), an empty range making the whole AND false;</li>
+ *   <li>brand equalities become a brand set: OR takes the union, AND the intersection;</li>
+ *   <li>quantity bounds are tightened to whole numbers, so {@code qty>1} and {@code qty>=2} agree;</li>
+ *   <li>the operands of AND and OR are ordered cheapest first, so short-circuiting skips the
+ *       substring tests whenever a range or brand test already decides the row.</li>
+ * </ul>
+ */
+final class QueryOptimizer {
+
+    private static final Comparator<QueryExpr> CHEAPEST_FIRST = Comparator.comparingInt(QueryExpr::cost);
+
+    private QueryOptimizer() {
+    }
+
+    static QueryExpr optimize(QueryExpr expr) {
+        if (expr instanceof Range) return range((Range) expr);
+        if (expr instanceof Match) {
+            Match match = (Match) expr;
+            if (match.getField() == Field.BRAND && !match.isContains()) return new BrandIn(Set.of(match.getValue()));
+            // Every brand or model contains the empty string
+            return match.isContains() && match.getValue().isEmpty() ? Const.TRUE : expr;
+        }
+        if (expr instanceof Not) {
+            QueryExpr operand = optimize(((Not) expr).getOperand());
+            if (operand instanceof Not) return ((Not) operand).getOperand();
+            if (operand instanceof Const) return ((Const) operand).getValue() ? Const.FALSE : Const.TRUE;
+            return new Not(operand);
+        }
+        if (expr instanceof And) return and(((And) expr).getOperands());
+        if (expr instanceof Or) return or(((Or) expr).getOperands());
+        return expr;
+    }
+
+    private static QueryExpr and(List<QueryExpr> raw) {
+        List<QueryExpr> operands = new ArrayList<>();
+        for (QueryExpr e : raw) {
+            QueryExpr opt = optimize(e);
+            if (opt instanceof And) operands.addAll(((And) opt).getOperands());
+            else operands.add(opt);
+        }
+
+        Map<Field, Range> ranges = new EnumMap<>(Field.class);
+        Set<String> brands = null;
+        Map<String, QueryExpr> rest = new LinkedHashMap<>(); // Keyed by canonical text, which drops duplicates
+        for (QueryExpr e : operands) {
+            if (e instanceof Const) {
+                if (!((Const) e).getValue()) return Const.FALSE;
+            } else if (e instanceof Range) {
+                Range r = (Range) e;
+                Range merged = ranges.containsKey(r.getField()) ? intersect(ranges.get(r.getField()), r) : r;
+                if (merged.isEmpty()) return Const.FALSE;
+                ranges.put(r.getField(), merged);
+            } else if (e instanceof BrandIn) {
+                Set<String> set = ((BrandIn) e).getBrands();
+                if (brands == null) {
+                    brands = new HashSet<>(set);
+                } else {
+                    brands.retainAll(set);
+                }
+                if (brands.isEmpty()) return Const.FALSE;
+            } else {
+                rest.putIfAbsent(e.toString(), e);
+            }
+        }
+
+        List<QueryExpr> result = new ArrayList<>(ranges.values());
+        if (brands != null) result.add(new BrandIn(brands));
+        result.addAll(rest.values());
+        return combine(result, true);
+    }
+
+    private static QueryExpr or(List<QueryExpr> raw) {
+        List<QueryExpr> operands = new ArrayList<>();
+        for (QueryExpr e : raw) {
+            QueryExpr opt = optimize(e);
+            if (opt instanceof Or) operands.addAll(((Or) opt).getOperands());
+            else operands.add(opt);
+        }
+
+        Map<Field, List<Range>> ranges = new EnumMap<>(Field.class);
+        Set<String> brands = null;
+        Map<String, QueryExpr> rest = new LinkedHashMap<>();
+        for (QueryExpr e : operands) {
+            if (e instanceof Const) {
+                if (((Const) e).getValue()) return Const.TRUE;
+            } else if (e instanceof Range) {
+                addToUnion(ranges.computeIfAbsent(((Range) e).getField(), f -> new ArrayList<>()), (Range) e);
+            } else if (e instanceof BrandIn) {
+                if (brands == null) brands = new HashSet<>();
+                brands.addAll(((BrandIn) e).getBrands());
+            } else {
+                rest.putIfAbsent(e.toString(), e);
+            }
+        }
+
+        List<QueryExpr> result = new ArrayList<>();
+        for (List<Range> list : ranges.values()) {
+            for (Range r : list) {
+                if (!r.hasMin() && !r.hasMax()) return Const.TRUE;
+                result.add(r);
+            }
+        }
+        if (brands != null) result.add(new BrandIn(brands));
+        result.addAll(rest.values());
+        return combine(result, false);
+    }
+
+    private static QueryExpr combine(List<QueryExpr> operands, boolean and) {
+        if (operands.isEmpty()) return and ? Const.TRUE : Const.FALSE;
+        if (operands.size() == 1) return operands.get(0);
+        operands.sort(CHEAPEST_FIRST); // Stable, so equally cheap tests keep the order they were written in
+        return and ? new And(operands) : new Or(operands);
+    }
+
+    private static QueryExpr range(Range r) {
+        r = tighten(r);
+        if (r.isEmpty()) return Const.FALSE;
+        return !r.hasMin() && !r.hasMax() ? Const.TRUE : r;
+    }
+
+    // Quantities are whole numbers: qty>1.5 is qty>=2 and qty<=3.9 is qty<=3
+    private static Range tighten(Range r) {
+        if (r.getField() != Field.QTY) return r;
+        double min = r.getMin();
+        if (r.hasMin()) min = r.isMinInclusive() ? Math.ceil(min) : Math.floor(min) + 1;
+        double max = r.getMax();
+        if (r.hasMax()) max = r.isMaxInclusive() ? Math.floor(max) : Math.ceil(max) - 1;
+        return new Range(Field.QTY, min, r.hasMin(), max, r.hasMax());
+    }
+
+    private static Range intersect(Range a, Range b) {
+        double min;
+        boolean minInclusive;
+        if (a.getMin() != b.getMin()) {
+            Range higher = a.getMin() > b.getMin() ? a : b;
+            min = higher.getMin();
+            minInclusive = higher.isMinInclusive();
+        } else {
+            min = a.getMin();
+            minInclusive = a.isMinInclusive() && b.isMinInclusive();
+        }
+        double max;
+        boolean maxInclusive;
+        if (a.getMax() != b.getMax()) {
+            Range lower = a.getMax() < b.getMax() ? a : b;
+            max = lower.getMax();
+            maxInclusive = lower.isMaxInclusive();
+        } else {
+            max = a.getMax();
+            maxInclusive = a.isMaxInclusive() && b.isMaxInclusive();
+        }
+        return new Range(a.getField(), min, minInclusive, max, maxInclusive);
+    }
+
+    // Adds r to a list of disjoint ranges, merging it with every range it overlaps or touches
+    private static void addToUnion(List<Range> ranges, Range r) {
+        for (int i = 0; i < ranges.size(); i++) {
+            Range other = ranges.get(i);
+            if (connected(other, r)) {
+                ranges.remove(i);
+                addToUnion(ranges, span(other, r));
+                return;
+            }
+        }
+        ranges.add(r);
+    }
+
+    private static boolean connected(Range a, Range b) {
+        Range first = a.getMin() < b.getMin() || (a.getMin() == b.getMin() && a.isMinInclusive()) ? a : b;
+        Range second = first == a ? b : a;
+        if (first.getMax() != second.getMin()) return first.getMax() > second.getMin();
+        return first.isMaxInclusive() || second.isMinInclusive();
+    }
+
+    private static Range span(Range a, Range b) {
+        double min;
+        boolean minInclusive;
+        if (a.getMin() != b.getMin()) {
+            Range lower = a.getMin() < b.getMin() ? a : b;
+            min = lower.getMin();
+            minInclusive = lower.isMinInclusive();
+        } else {
+            min = a.getMin();
+            minInclusive = a.isMinInclusive() || b.isMinInclusive();
+        }
+        double max;
+        boolean maxInclusive;
+        if (a.getMax() != b.getMax()) {
+            Range higher = a.getMax() > b.getMax() ? a : b;
+            max = higher.getMax();
+            maxInclusive = higher.isMaxInclusive();
+        } else {
+            max = a.getMax();
+            maxInclusive = a.isMaxInclusive() || b.isMaxInclusive();
+        }
+        return new Range(a.getField(), min, minInclusive, max, maxInclusive);
+    }
+}
@@ -0,0 +1,246 @@
+package showroom.query;
+
+import showroom.model.SearchKeys;
+import showroom.query.QueryExpr.Field;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recursive-descent parser for the search query syntax described on {@link InventoryQuery}.
+ * Produces the raw syntax tree; simplification is left to {@link QueryOptimizer}.
+ *
+ * <pre>
+ * query   := or
+ * or      := and ("OR" and)*
+ * and     := unary (["AND"] unary)*
+ * unary   := ("NOT" | "-") unary | "(" or ")" | field op value | value
+ * </pre>
+ */
+final class QueryParser {
+
+    private enum Type { WORD, STRING, OP, LPAREN, RPAREN, NOT, AND, OR, END }
+
+    private static final class Token {
+        final Type type;
+        final String text;
+        final int position;
+
+        Token(Type type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+    }
+
+    // Characters that end a bare word
+    private static final String SPECIAL = "()\":=~<>!";
+    // A number with an optional Indian-style unit: 12.5L, 1.2Cr, 3e7, 500k
+    private static final Pattern NUMBER = Pattern.compile(
+            "([+-]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][+-]?\\d+)?)(k|l|lakh|lac|cr|crore)?", Pattern.CASE_INSENSITIVE);
+
+    private final List<Token> tokens;
+    private int next;
+
+    private QueryParser(String text) {
+        this.tokens = tokenize(text);
+    }
+
+    static QueryExpr parse(String text) {
+        QueryParser parser = new QueryParser(text);
+        if (parser.peek().type == Type.END) return QueryExpr.Const.TRUE;
+        QueryExpr expr = parser.parseOr();
+        Token extra = parser.peek();
+        if (extra.type != Type.END) throw new QuerySyntaxException("Unexpected '" + extra.text + "'", extra.position);
+        return expr;
+    }
+
+    static boolean isKeyword(String word) {
+        return word.equals("AND") || word.equals("OR") || word.equals("NOT");
+    }
+
+    static Field field(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "brand": return Field.BRAND;
+            case "model": return Field.MODEL;
+            case "price": return Field.PRICE;
+            case "qty":
+            case "quantity":
+            case "stock": return Field.QTY;
+            default: return null;
+        }
+    }
+
+    // --- Tokenizer ---
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(Type.LPAREN, "(", i++));
+            } else if (c == ')') {
+                tokens.add(new Token(Type.RPAREN, ")", i++));
+            } else if (c == '"') {
+                StringBuilder sb = new StringBuilder();
+                int start = i++;
+                while (i < text.length() && text.charAt(i) != '"') {
+                    if (text.charAt(i) == '\\' && i + 1 < text.length()) i++;
+                    sb.append(text.charAt(i++));
+                }
+                if (i == text.length()) throw new QuerySyntaxException("Unterminated quote", start);
+                i++;
+                tokens.add(new Token(Type.STRING, sb.toString(), start));
+            } else if (":=~<>!".indexOf(c) >= 0) {
+                int start = i++;
+                if ((c == '<' || c == '>' || c == '!') && i < text.length() && text.charAt(i) == '=') i++;
+                String op = text.substring(start, i);
+                if (op.equals("!")) throw new QuerySyntaxException("Expected '!='", start);
+                tokens.add(new Token(Type.OP, op, start));
+            } else if (c == '-' && (tokens.isEmpty() || tokens.get(tokens.size() - 1).type != Type.OP)) {
+                // Leading minus negates the next term; after an operator it is part of the value
+                tokens.add(new Token(Type.NOT, "-", i++));
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && SPECIAL.indexOf(text.charAt(i)) < 0) i++;
+                String word = text.substring(start, i);
+                Type type = word.equals("AND") ? Type.AND : word.equals("OR") ? Type.OR : word.equals("NOT") ? Type.NOT : Type.WORD;
+                tokens.add(new Token(type, word, start));
+            }
+        }
+        tokens.add(new Token(Type.END, "end of query", text.length()));
+        return tokens;
+    }
+
+    // --- Grammar ---
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private Token take() {
+        return tokens.get(next++);
+    }
+
+    private QueryExpr parseOr() {
+        List<QueryExpr> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while (peek().type == Type.OR) {
+            take();
+            operands.add(parseAnd());
+        }
+        return operands.size() == 1 ? operands.get(0) : new QueryExpr.Or(operands);
+    }
+
+    private QueryExpr parseAnd() {
+        List<QueryExpr> operands = new ArrayList<>();
+        operands.add(parseUnary());
+        while (true) {
+            Type type = peek().type;
+            if (type == Type.AND) {
+                take();
+            } else if (type != Type.WORD && type != Type.STRING && type != Type.LPAREN && type != Type.NOT) {
+                break;
+            }
+            operands.add(parseUnary());
+        }
+        return operands.size() == 1 ? operands.get(0) : new QueryExpr.And(operands);
+    }
+
+    private QueryExpr parseUnary() {
+        Token token = take();
+        switch (token.type) {
+            case NOT:
+                return new QueryExpr.Not(parseUnary());
+            case LPAREN: {
+                QueryExpr inner = parseOr();
+                Token close = take();
+                if (close.type != Type.RPAREN) throw new QuerySyntaxException("Missing ')'", close.position);
+                return inner;
+            }
+            case WORD:
+                if (peek().type == Type.OP) return parseComparison(token, take());
+                return new QueryExpr.Match(Field.TEXT, true, SearchKeys.lower(token.text));
+            case STRING:
+                return new QueryExpr.Match(Field.TEXT, true, SearchKeys.lower(token.text));
+            default:
+                throw new QuerySyntaxException("Expected a search term but found '" + token.text + "'", token.position);
+        }
+    }
+
+    private QueryExpr parseComparison(Token name, Token op) {
+        Field field = field(name.text);
+        if (field == null) {
+            throw new QuerySyntaxException("Unknown field '" + name.text + "' (use brand, model, price or qty)", name.position);
+        }
+        Token value = take();
+        if (value.type != Type.WORD && value.type != Type.STRING) {
+            throw new QuerySyntaxException("Expected a value after '" + name.text + op.text + "'", value.position);
+        }
+        return field.isNumeric() ? numeric(field, op, value) : textual(field, op, value);
+    }
+
+    private static QueryExpr textual(Field field, Token op, Token value) {
+        switch (op.text) {
+            case ":":
+            case "=":
+                return new QueryExpr.Match(field, false, SearchKeys.fold(value.text));
+            case "!=":
+                return new QueryExpr.Not(new QueryExpr.Match(field, false, SearchKeys.fold(value.text)));
+            case "~":
+                return new QueryExpr.Match(field, true, SearchKeys.lower(value.text));
+            default:
+                throw new QuerySyntaxException(field.getName() + " cannot be compared with '" + op.text
+                        + "' (use :, != or ~)", op.position);
+        }
+    }
+
+    private static QueryExpr numeric(Field field, Token op, Token value) {
+        double inf = Double.POSITIVE_INFINITY;
+        if (op.text.equals(":") || op.text.equals("=")) {
+            int dots = value.text.indexOf("..");
+            if (dots >= 0) {
+                // price:10L..50L, either side may be left open
+                String low = value.text.substring(0, dots);
+                String high = value.text.substring(dots + 2);
+                return new QueryExpr.Range(field,
+                        low.isEmpty() ? -inf : number(low, value.position), true,
+                        high.isEmpty() ? inf : number(high, value.position + dots + 2), true);
+            }
+            double v = number(value.text, value.position);
+            return new QueryExpr.Range(field, v, true, v, true);
+        }
+        double v = number(value.text, value.position);
+        switch (op.text) {
+            case "<": return new QueryExpr.Range(field, -inf, false, v, false);
+            case "<=": return new QueryExpr.Range(field, -inf, false, v, true);
+            case ">": return new QueryExpr.Range(field, v, false, inf, false);
+            case ">=": return new QueryExpr.Range(field, v, true, inf, false);
+            case "!=": return new QueryExpr.Not(new QueryExpr.Range(field, v, true, v, true));
+            default:
+                throw new QuerySyntaxException(field.getName() + " cannot be compared with '" + op.text + "'", op.position);
+        }
+    }
+
+    private static double number(String value, int position) {
+        Matcher m = NUMBER.matcher(value);
+        if (!m.matches()) throw new QuerySyntaxException("Not a number: '" + value + "'", position);
+        double v = Double.parseDouble(m.group(1));
+        String unit = m.group(2) == null ? "" : m.group(2).toLowerCase(Locale.ROOT);
+        switch (unit) {
+            case "k": return v * 1_000;
+            case "l":
+            case "lakh":
+            case "lac": return v * 100_000;
+            case "cr":
+            case "crore": return v * 10_000_000;
+            default: return v;
+        }
+    }
+}
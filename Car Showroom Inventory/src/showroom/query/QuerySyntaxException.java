@@ -0,0 +1,20 @@
+package showroom.query;
+
+/**
+ * A search query that could not be parsed; the message names the problem and where it is.
+ */
+public class QuerySyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public QuerySyntaxException(String message, int position) {
+        super(message + " (at position " + (position + 1) + ")");
+        this.position = position;
+    }
+
+    /**
+     * Zero-based character offset of the problem in the query text.
+     */
+    public int getPosition() { return position; }
+}
@@ -0,0 +1,51 @@
+package showroom.query;
+
+import showroom.model.CarModel;
+
+import java.util.List;
+
+/**
+ * One page of a filter result in brand, model order, with the size of the whole result.
+ * {@link #getNextBrand()} / {@link #getNextModel()} form the keyset cursor for the following page.
+ */
+public final class ResultPage {
+    private final List<CarModel> cars;
+    private final int offset;
+    private final int totalCount;
+
+    public ResultPage(List<CarModel> cars, int offset, int totalCount) {
+        this.cars = cars;
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    public List<CarModel> getCars() { return cars; }
+
+    /**
+     * Position of the first car of this page within the whole result.
+     */
+    public int getOffset() { return offset; }
+
+    /**
+     * Number of cars in the whole result, not just this page.
+     */
+    public int getTotalCount() { return totalCount; }
+
+    public boolean hasMore() {
+        return offset + cars.size() < totalCount;
+    }
+
+    /**
+     * Brand of the last car on the page, or null when the page is empty.
+     */
+    public String getNextBrand() {
+        return cars.isEmpty() ? null : cars.get(cars.size() - 1).getBrand();
+    }
+
+    /**
+     * Model of the last car on the page, or null when the page is empty.
+     */
+    public String getNextModel() {
+        return cars.isEmpty() ? null : cars.get(cars.size() - 1).getModel();
+    }
+}
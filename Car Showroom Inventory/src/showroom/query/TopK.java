@@ -0,0 +1,54 @@
+package showroom.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the first k items of a collection in comparator order without sorting all of it.
+ * A max-heap of size k keeps the best items seen so far, so the work is O(n log k) instead of
+ * O(n log n) and only k items are ever held; the heap is sorted at the end.
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * The k smallest items in ascending order (all of them, sorted, when there are fewer than k).
+     */
+    public static <T> List<T> smallest(Collection<T> items, int k, Comparator<? super T> order) {
+        if (k <= 0) return new ArrayList<>();
+        if (k >= items.size() / 2) {
+            // Most of the input is wanted anyway; a plain sort is cheaper than heap churn
+            List<T> sorted = new ArrayList<>(items);
+            ParallelScan.sort(sorted, order);
+            return k < sorted.size() ? new ArrayList<>(sorted.subList(0, k)) : sorted;
+        }
+        PriorityQueue<T> heap = new PriorityQueue<>(k + 1, Collections.reverseOrder(order));
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.add(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(item);
+            }
+        }
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Items [offset, offset + limit) of the collection in comparator order.
+     */
+    public static <T> List<T> page(Collection<T> items, int offset, int limit, Comparator<? super T> order) {
+        if (offset >= items.size() || limit <= 0) return new ArrayList<>();
+        long end = Math.min((long) offset + limit, items.size());
+        List<T> head = smallest(items, (int) end, order);
+        return new ArrayList<>(head.subList(offset, head.size()));
+    }
+}
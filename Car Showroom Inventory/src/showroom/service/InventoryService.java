@@ -1,7 +1,29 @@
 package showroom.service;
 
+import showroom.index.BrandIndex;
+import showroom.index.CarKeyIndex;
+import showroom.index.FacetIndex;
+import showroom.index.FacetIndex.PriceBucket;
+import showroom.index.FuzzyIndex;
+import showroom.index.PriceIndex;
+import showroom.index.RoaringBitmap;
+import showroom.index.TrigramIndex;
 import showroom.model.CarModel;
 import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+import showroom.model.SearchKeys;
+import showroom.persistence.CsvInventoryRepository;
+import showroom.persistence.InventoryRepositories;
+import showroom.persistence.InventoryRepository;
+import showroom.persistence.SalesSegment;
+import showroom.query.FacetedResult;
+import showroom.query.FilterCache;
+import showroom.query.FilterPlanner;
+import showroom.query.InventoryQuery;
+import showroom.query.ParallelScan;
+import showroom.query.QuerySyntaxException;
+import showroom.query.ResultPage;
+import showroom.query.TopK;
 
 import java.io.*;
 import java.net.MalformedURLException;
@@ -10,17 +32,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 /**
- * Handles all business logic, persistence (CSV files), and image management.
+ * Handles all business logic, persistence (through a pluggable InventoryRepository), and image management.
  * Includes logic for inventory, sales, filtering, and reporting.
  * Data files are now saved in a 'data' folder *outside* the 'src' directory (relative to project root).
  */
 public class InventoryService {
     private List<CarModel> inventory;
-    private List<SaleModel> salesLog;
+    private SalesColumns salesLog; // Columnar: about 20 bytes a sale
     
     // --- CORRECTED FILE PATHS ---
     // Use "../data/" to place the data folder one level up from the execution directory (src),
@@ -34,17 +60,53 @@ public class InventoryService {
     private final Path dataDirectoryPath;
     private final Path imageDirectoryPath;
 
+    // Storage backend chosen at startup (-Dshowroom.storage); every mutation is reported to it
+    private InventoryRepository repository;
+
+    // Case-insensitive brand+model lookup, kept in step with every inventory mutation
+    private final CarKeyIndex carIndex = new CarKeyIndex();
+    // Sorted brands and brand -> models for the selection combos
+    private final BrandIndex brandIndex = new BrandIndex();
+    // Price-sorted cars for price-band filtering
+    private final PriceIndex priceIndex = new PriceIndex();
+    // Trigram postings for the brand/model search box
+    private final TrigramIndex textIndex = new TrigramIndex();
+    // In-stock / brand / price-bucket bitmaps for faceted filtering and facet counts
+    private final FacetIndex facetIndex = new FacetIndex();
+    // BK-tree over brand/model words for typo-tolerant search; built on the first fuzzy search
+    private FuzzyIndex fuzzyIndex;
+    // Edit distance allowed per search word in fuzzy mode; override with -Dshowroom.search.maxEdits
+    private static final int FUZZY_MAX_EDITS = Integer.getInteger("showroom.search.maxEdits", 2);
+
+    // Recent filter results; sized with -Dshowroom.filterCache.entries / -Dshowroom.filterCache.rows (0 entries disables)
+    private static final int FILTER_CACHE_ENTRIES = Integer.getInteger("showroom.filterCache.entries", 32);
+    private static final long FILTER_CACHE_ROWS = Long.getLong("showroom.filterCache.rows", 1_000_000);
+    private final FilterCache<List<CarModel>> filterCache = new FilterCache<>(FILTER_CACHE_ENTRIES, FILTER_CACHE_ROWS);
+    private final FilterCache<FacetedResult> facetCache = new FilterCache<>(FILTER_CACHE_ENTRIES, FILTER_CACHE_ROWS);
+    private final FilterCache<ResultPage> pageCache = new FilterCache<>(FILTER_CACHE_ENTRIES, FILTER_CACHE_ROWS);
+
+    // Inventory value, revenue, units sold and per-brand figures, kept up to date by every mutation
+    private ReportTotals reportTotals = new ReportTotals();
+    // Recomputing them from scratch on exit costs a full pass over the sales log; enable with -Dshowroom.verifyTotals=true
+    private static final boolean VERIFY_TOTALS_ON_EXIT = Boolean.parseBoolean(System.getProperty("showroom.verifyTotals", "false"));
+
+    // Display order of filter results: brand, then model, ignoring case, via the precomputed sort key
+    private static final Comparator<CarModel> BRAND_MODEL_ORDER = Comparator.comparing(CarModel::getSortKey);
+
 
     public InventoryService() {
         inventory = new ArrayList<>();
-        salesLog = new ArrayList<>();
+        salesLog = new SalesColumns();
 
         // Resolve absolute paths ONCE based on expected execution from 'src'
         Path executionPath = Paths.get("").toAbsolutePath(); // Should be the 'src' directory
-        dataDirectoryPath = executionPath.resolve(DATA_DIR_RELATIVE_TO_SRC).normalize();
+        // -Dshowroom.dataDir points the service at another data folder (e.g. a copy for benchmarking a backend)
+        String dataDirOverride = System.getProperty("showroom.dataDir");
+        dataDirectoryPath = dataDirOverride != null
+                ? Paths.get(dataDirOverride).toAbsolutePath().normalize()
+                : executionPath.resolve(DATA_DIR_RELATIVE_TO_SRC).normalize();
         imageDirectoryPath = dataDirectoryPath.resolve("images").normalize();
 
-
         // Ensure data directories exist using absolute paths
         try {
             if (!Files.exists(dataDirectoryPath)) {
@@ -61,8 +123,10 @@ public class InventoryService {
         }
 
 
-        loadInventory();
-        loadSalesLog();
+        long startNanos = System.nanoTime();
+        loadRepository(InventoryRepositories.fromSystemProperties(dataDirectoryPath));
+        rebuildIndexes();
+        System.out.println("Startup load finished in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms.");
     }
 
     // --- Persistence Methods ---
@@ -74,91 +138,64 @@ public class InventoryService {
     }
 
 
-    private void loadInventory() {
-        Path filePath = getDataFilePath("inventory.csv"); // Use helper
-        File file = filePath.toFile();
-
-        System.out.println("Loading inventory from: " + filePath); // Debugging
-
-        // Directory creation now handled in constructor, but double-check is safe
-        if (!file.getParentFile().exists()) {
-            file.getParentFile().mkdirs();
-        }
+    private void loadRepository(InventoryRepository candidate) {
+        System.out.println("Loading data with the " + candidate.getName() + " storage backend from: " + dataDirectoryPath); // Debugging
         try {
-            if (!file.exists()) {
-                System.out.println("Inventory file not found, creating new one.");
-                file.createNewFile();
-            }
-
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    CarModel car = CarModel.fromCSV(line);
-                    if (car != null) {
-                        // Ensure image path stored in CSV is correctly interpreted relative to project root
-                        // If it's already relative like "data/images/...", it should work.
-                        // If it became absolute somehow, it might need correction here.
-                        inventory.add(car);
-                    }
-                }
-                 System.out.println("Loaded " + inventory.size() + " cars from inventory.");
-            }
+            candidate.load(inventory, salesLog);
+            repository = candidate;
         } catch (IOException e) {
-            System.err.println("Error loading inventory file: " + filePath + ". Error: " + e.getMessage());
+            System.err.println("Error loading " + candidate.getName() + " storage from: " + dataDirectoryPath + ". Error: " + e.getMessage());
+            candidate.close();
+            inventory.clear();
+            salesLog.clear();
+            if (!(candidate instanceof CsvInventoryRepository)) {
+                // The backend was chosen explicitly; running on csv instead would split the data between two stores
+                throw new IllegalStateException("Could not open the " + candidate.getName() + " storage backend: " + e.getMessage(), e);
+            }
+            repository = candidate; // Keep the partially opened CSV store so new data is still written
         }
     }
 
-    private void saveInventory() {
-         Path filePath = getDataFilePath("inventory.csv"); // Use helper
-         System.out.println("Saving inventory to: " + filePath); // Debugging
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath.toFile()))) {
-            for (CarModel car : inventory) {
-                bw.write(car.toString());
-                bw.newLine();
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving inventory file: " + filePath + ". Error: " + e.getMessage());
+    private void rebuildIndexes() {
+        carIndex.clear();
+        brandIndex.clear();
+        for (CarModel car : inventory) {
+            carIndex.add(car);
+            brandIndex.add(car);
         }
+        priceIndex.rebuild(inventory);
+        textIndex.clear();
+        facetIndex.clear();
+        for (CarModel car : inventory) {
+            textIndex.add(car);
+            facetIndex.add(car);
+        }
+        fuzzyIndex = null;
+        invalidateFilters();
+        reportTotals = ReportTotals.compute(inventory, salesLog, repository.getSalesSegments());
     }
 
-    private void loadSalesLog() {
-        Path filePath = getDataFilePath("sales_log.csv"); // Use helper
-        File file = filePath.toFile();
-        System.out.println("Loading sales log from: " + filePath); // Debugging
-
-        if (!file.getParentFile().exists()) {
-            file.getParentFile().mkdirs();
-        }
-        try {
-            if (!file.exists()){
-                 System.out.println("Sales log file not found, creating new one.");
-                 file.createNewFile();
-            }
+    // Called by mutations that can change which cars a filter returns or their order
+    private void invalidateFilters() {
+        filterCache.invalidate();
+        facetCache.invalidate();
+        pageCache.invalidate();
+    }
 
-            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    SaleModel sale = SaleModel.fromCSV(line);
-                    if (sale != null) salesLog.add(sale);
-                }
-                 System.out.println("Loaded " + salesLog.size() + " sales records.");
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading sales log file: " + filePath + ". Error: " + e.getMessage());
+    // Called after each mutation; lets the backend compact its logs when it needs to
+    private void afterMutation() {
+        if (repository.needsCheckpoint()) {
+            repository.checkpoint(inventory, salesLog);
         }
     }
 
-    private void saveSalesLog(SaleModel sale) {
-        Path filePath = getDataFilePath("sales_log.csv"); // Use helper
-        System.out.println("Appending sale to: " + filePath); // Debugging
-        // Appends the new sale to the log file
-        try (FileWriter fw = new FileWriter(filePath.toFile(), true);
-             BufferedWriter bw = new BufferedWriter(fw)) {
-            bw.write(sale.toString());
-            bw.newLine();
-        } catch (IOException e) {
-            System.err.println("Error writing to sales log file: " + filePath + ". Error: " + e.getMessage());
-        }
+    /**
+     * Flushes pending state to disk. Call once when the application exits.
+     */
+    public void shutdown() {
+        if (VERIFY_TOTALS_ON_EXIT) verifyReportTotals(); // Debugging: reports drift of the running totals, if any
+        repository.checkpoint(inventory, salesLog);
+        repository.close();
     }
 
     // --- Image Handling ---
@@ -232,10 +269,22 @@ public class InventoryService {
              car.setImagePath("data/images/" + imageFileName.toString());
         }
         inventory.add(car);
-        saveInventory();
+        carIndex.add(car);
+        brandIndex.add(car);
+        priceIndex.add(car);
+        textIndex.add(car);
+        facetIndex.add(car);
+        if (fuzzyIndex != null) fuzzyIndex.add(car);
+        invalidateFilters();
+        reportTotals.carAdded(car);
+        repository.carAdded(car);
+        afterMutation();
     }
 
     public void updateCarModel(CarModel car, String newBrand, String newModel, double newPrice, int newQty, String newImageSourcePath) {
+        // Line breaks would split the car's CSV and journal lines; the model setters drop them too
+        newBrand = CarModel.singleLine(newBrand);
+        newModel = CarModel.singleLine(newModel);
 
         String finalRelativeImagePath = car.getImagePath(); // Default to old relative path
 
@@ -257,13 +306,34 @@ public class InventoryService {
             }
         }
 
+        String oldBrand = car.getBrand();
+        String oldModel = car.getModel();
+        double oldPrice = car.getPrice();
+        int oldQty = car.getQuantity();
+        boolean wasInStock = oldQty > 0;
         car.setBrand(newBrand);
         car.setModel(newModel);
         car.setPrice(newPrice);
         car.setQuantity(newQty);
         car.setImagePath(finalRelativeImagePath); // Save the potentially updated stored relative path
+        carIndex.rename(oldBrand, oldModel, car);
+        brandIndex.rename(oldBrand, car);
+        priceIndex.reprice(oldPrice, car);
+        facetIndex.refresh(car); // Brand, price bucket and stock may all have changed
+        if (!oldBrand.equals(newBrand) || !oldModel.equals(newModel)) {
+            textIndex.rename(car);
+            if (fuzzyIndex != null) fuzzyIndex.rename(oldBrand, oldModel, car);
+        }
+        // A quantity or image change that keeps the car in stock leaves every filter result as it was
+        if (!oldBrand.equals(newBrand) || !oldModel.equals(newModel) || Double.compare(oldPrice, newPrice) != 0
+                || wasInStock != (newQty > 0)) {
+            invalidateFilters();
+        }
+        reportTotals.carRemoved(oldBrand, oldPrice, oldQty);
+        reportTotals.carAdded(car);
 
-        saveInventory();
+        repository.carUpdated(oldBrand, oldModel, car);
+        afterMutation();
     }
 
     public boolean removeCarModel(String brand, String model) {
@@ -273,7 +343,16 @@ public class InventoryService {
             deleteImageFile(carToRemove.getImagePath());
 
             inventory.remove(carToRemove);
-            saveInventory();
+            carIndex.remove(carToRemove);
+            brandIndex.remove(carToRemove);
+            priceIndex.remove(carToRemove);
+            textIndex.remove(carToRemove);
+            facetIndex.remove(carToRemove);
+            if (fuzzyIndex != null) fuzzyIndex.remove(carToRemove);
+            invalidateFilters();
+            reportTotals.carRemoved(carToRemove.getBrand(), carToRemove.getPrice(), carToRemove.getQuantity());
+            repository.carRemoved(carToRemove);
+            afterMutation();
             return true;
         }
         return false;
@@ -307,40 +386,212 @@ public class InventoryService {
         CarModel car = getCarModel(brand, model);
         if (car != null && car.getQuantity() > 0) {
             car.setQuantity(car.getQuantity() - 1);
-            saveInventory();
-
-            SaleModel sale = new SaleModel(brand, model, car.getPrice());
-            salesLog.add(sale);
-            saveSalesLog(sale);
+            if (car.getQuantity() == 0) {
+                // Last unit: leaves the in-stock bitmap and any in-stock filter result
+                facetIndex.refresh(car);
+                invalidateFilters();
+            }
+            salesLog.add(new SaleModel(brand, model, car.getPrice()));
+            SaleModel sale = salesLog.get(salesLog.size() - 1); // As stored: whole seconds and paise
+            reportTotals.unitSold(car);
+            reportTotals.saleRecorded(sale);
+            repository.carSold(car, sale);
+            afterMutation();
 
             return car;
         }
         return null;
     }
 
+    /**
+     * Read-only copy of the loaded sales in recording order. It shares the log's column chunks, so
+     * taking it does not copy the sales; each sale is built when it is read.
+     */
     public List<SaleModel> getSalesLog() {
-        return new ArrayList<>(salesLog);
+        return salesLog.snapshot();
     }
 
     public double getTotalInventoryValue() {
-        return inventory.stream()
-            .mapToDouble(c -> c.getPrice() * c.getQuantity())
-            .sum();
+        return reportTotals.getInventoryValue();
     }
 
+    /**
+     * Lifetime revenue, including archived sales segments.
+     */
     public double getTotalRevenue() {
-        return salesLog.stream()
-            .mapToDouble(SaleModel::getSalePrice)
-            .sum();
+        return reportTotals.getRevenue();
+    }
+
+    /**
+     * Number of sales ever recorded, including archived segments.
+     */
+    public long getTotalSalesCount() {
+        return reportTotals.getUnitsSold();
+    }
+
+    /**
+     * Per-brand inventory and sales figures (sales still in memory), in brand order.
+     */
+    public Map<String, ReportTotals.BrandTotals> getBrandTotals() {
+        return reportTotals.getBrandTotals();
+    }
+
+    /**
+     * Recomputes the report totals from the whole inventory and sales log and compares them with the
+     * running ones. On a mismatch the differences are logged and the recomputed totals take over.
+     * Returns true when the running totals were correct.
+     */
+    public boolean verifyReportTotals() {
+        ReportTotals expected = ReportTotals.compute(inventory, salesLog, repository.getSalesSegments());
+        List<String> differences = reportTotals.differences(expected);
+        if (differences.isEmpty()) return true;
+        System.err.println("Error: report totals did not match the data and were recomputed. Differences: " + differences);
+        reportTotals = expected;
+        return false;
+    }
+
+    /**
+     * Loaded sales with a timestamp in [from, to], in recording order.
+     * Segments entirely outside the range are skipped without looking at their records.
+     */
+    public List<SaleModel> getSalesBetween(LocalDateTime from, LocalDateTime to) {
+        long fromEpoch = from.toEpochSecond(ZoneOffset.UTC);
+        long toEpoch = to.toEpochSecond(ZoneOffset.UTC);
+        List<SalesSegment> segments = repository.getSalesSegments();
+        if (segments.isEmpty()) {
+            return salesBetween(0, salesLog.size(), fromEpoch, toEpoch, new ArrayList<>());
+        }
+
+        List<SaleModel> result = new ArrayList<>();
+        for (SalesSegment segment : segments) {
+            if (segment.isArchived() || segment.isOutside(fromEpoch, toEpoch)) continue;
+            int first = segment.getFirstIndex();
+            if (segment.isInside(fromEpoch, toEpoch)) {
+                result.addAll(salesLog.subList(first, first + segment.getCount()));
+            } else {
+                salesBetween(first, first + segment.getCount(), fromEpoch, toEpoch, result);
+            }
+        }
+        return result;
+    }
+
+    // Adds the sales [start, end) of the log stamped in [fromEpoch, toEpoch]; only matches are built as SaleModels
+    private List<SaleModel> salesBetween(int start, int end, long fromEpoch, long toEpoch, List<SaleModel> result) {
+        for (int i = start; i < end; i++) {
+            long epoch = salesLog.getEpochSecond(i);
+            if (epoch >= fromEpoch && epoch <= toEpoch) result.add(salesLog.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Revenue of sales with a timestamp in [from, to]. Segments fully inside the range are taken
+     * from the manifest (archived ones included), segments outside it are skipped, and only the
+     * segments straddling a boundary are scanned: in memory, or from the file once archived.
+     */
+    public double getRevenueBetween(LocalDateTime from, LocalDateTime to) {
+        long fromEpoch = from.toEpochSecond(ZoneOffset.UTC);
+        long toEpoch = to.toEpochSecond(ZoneOffset.UTC);
+        List<SalesSegment> segments = repository.getSalesSegments();
+        if (segments.isEmpty()) {
+            return revenueBetween(0, salesLog.size(), fromEpoch, toEpoch);
+        }
+
+        double revenue = 0;
+        for (SalesSegment segment : segments) {
+            if (segment.isOutside(fromEpoch, toEpoch)) continue;
+            if (segment.isInside(fromEpoch, toEpoch)) {
+                revenue += segment.getRevenue();
+            } else if (!segment.isArchived()) {
+                revenue += revenueBetween(segment.getFirstIndex(), segment.getFirstIndex() + segment.getCount(), fromEpoch, toEpoch);
+            } else {
+                revenue += archivedRevenueBetween(segment, fromEpoch, toEpoch);
+            }
+        }
+        return revenue;
+    }
+
+    // An archived segment straddling the range is no longer in memory, so its file is scanned
+    private double archivedRevenueBetween(SalesSegment segment, long fromEpoch, long toEpoch) {
+        try {
+            double revenue = 0;
+            for (SaleModel sale : repository.readArchivedSales(segment)) {
+                long epoch = sale.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+                if (epoch >= fromEpoch && epoch <= toEpoch) revenue += sale.getSalePrice();
+            }
+            return revenue;
+        } catch (IOException e) {
+            System.err.println("Error reading archived sales segment " + segment.getMonth() + "; revenue leaves it out. Error: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // Revenue of the sales [start, end) of the log stamped in [fromEpoch, toEpoch], read straight from the columns
+    private double revenueBetween(int start, int end, long fromEpoch, long toEpoch) {
+        double revenue = 0;
+        for (int i = start; i < end; i++) {
+            long epoch = salesLog.getEpochSecond(i);
+            if (epoch >= fromEpoch && epoch <= toEpoch) revenue += salesLog.getSalePrice(i);
+        }
+        return revenue;
+    }
+
+    /**
+     * Archives sales segments older than the given month: their files move to the archive folder and
+     * their records are dropped from memory. Totals still include them. Returns the number archived.
+     */
+    public int archiveSalesBefore(YearMonth month) {
+        int archived = repository.archiveSalesBefore(month);
+        if (archived > 0) {
+            reportTotals.salesArchived(salesLog.subList(0, archived));
+            salesLog.subList(0, archived).clear();
+            repository.checkpoint(inventory, salesLog); // The old binary snapshot still contains them
+        }
+        return archived;
     }
 
     public String getBestSellingModel() {
-        return salesLog.stream()
-            .collect(Collectors.groupingBy(s -> s.getBrand() + " " + s.getModel(), Collectors.counting()))
-            .entrySet().stream()
-            .max(Comparator.comparingLong(Map.Entry::getValue))
-            .map(entry -> entry.getKey() + " (" + entry.getValue() + " units)")
-            .orElse("N/A (No sales yet)");
+        // Ties go to the alphabetically first model so the answer never depends on hash order
+        SalesRanking.Entry best = reportTotals.getBestModel();
+        return best != null ? best.toString() : "N/A (No sales yet)";
+    }
+
+    /**
+     * The n best-selling models ("Brand Model" and units) among the loaded sales, best first.
+     */
+    public List<SalesRanking.Entry> getTopSellingModels(int n) {
+        return reportTotals.getTopModels(n);
+    }
+
+    /**
+     * The n best-selling models over the last 7 or 30 days, today included, best first.
+     * Both windows are maintained sale by sale, so this never rescans the sales log.
+     */
+    public List<SalesRanking.Entry> getTopSellingModels(int n, int days) {
+        return reportTotals.getTopModels(n, days, LocalDate.now());
+    }
+
+    /**
+     * Revenue and units per hour, day, month or year for the loaded sales in [from, to), in time
+     * order; periods without sales are left out.
+     */
+    public SortedMap<LocalDateTime, SalesRollup.Totals> getSalesTrend(SalesRollup.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return reportTotals.getRollup().series(granularity, granularity.truncate(from), to);
+    }
+
+    /**
+     * Revenue and units per brand for the loaded sales in [from, to) (rounded out to whole hours),
+     * e.g. one month; answered from the rollups without reading the sales.
+     */
+    public Map<String, SalesRollup.Totals> getSalesByBrand(LocalDateTime from, LocalDateTime to) {
+        return reportTotals.getRollup().byBrand(from, to);
+    }
+
+    /**
+     * Revenue and units per model ("Brand Model") for the loaded sales in [from, to), rounded out to whole hours.
+     */
+    public Map<String, SalesRollup.Totals> getSalesByModel(LocalDateTime from, LocalDateTime to) {
+        return reportTotals.getRollup().byModel(from, to);
     }
 
     // --- Getters and Filtering ---
@@ -349,34 +600,330 @@ public class InventoryService {
         return new ArrayList<>(inventory); // Return copy
     }
 
+    /**
+     * Cars [offset, offset + limit) in inventory order; copies only that slice.
+     */
+    public List<CarModel> getModels(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), inventory.size());
+        int to = (int) Math.min((long) from + Math.max(limit, 0), inventory.size());
+        return new ArrayList<>(inventory.subList(from, to));
+    }
+
     public List<String> getAllBrands() {
-        return inventory.stream().map(CarModel::getBrand).distinct().sorted().collect(Collectors.toList());
+        return brandIndex.getBrands();
     }
 
     public List<CarModel> getModelsByBrand(String brand) {
-        return inventory.stream().filter(c -> c.getBrand().equalsIgnoreCase(brand)).collect(Collectors.toList());
+        return brandIndex.getModels(brand);
     }
 
     public CarModel getCarModel(String brand, String model) {
-        for (CarModel c : inventory) {
-            if (c.getBrand().equalsIgnoreCase(brand) && c.getModel().equalsIgnoreCase(model))
-                return c;
-        }
-        return null;
+        return carIndex.get(brand, model);
     }
 
     public List<CarModel> filterInventory(String searchText, double minPrice, double maxPrice, boolean inStockOnly) {
-        String query = searchText.toLowerCase().trim(); // Trim search text
+        FilterCache.Key key = new FilterCache.Key("filter", TrigramIndex.normalize(searchText).trim(),
+                minPrice, maxPrice, inStockOnly, Set.of(), Set.of());
+        List<CarModel> cached = filterCache.get(key);
+        if (cached != null) return new ArrayList<>(cached); // Copy: callers may modify the list
+
+        List<CarModel> result = findCandidates(searchText, minPrice, maxPrice, inStockOnly);
+        ParallelScan.sort(result, BRAND_MODEL_ORDER);
+        filterCache.put(key, new ArrayList<>(result), result.size());
+        return result;
+    }
+
+    /**
+     * One page [offset, offset + limit) of {@link #filterInventory}'s result, plus the total count.
+     * Served from the cached full result or a cached copy of the page when there is one; otherwise only
+     * the rows up to the end of the page are ordered, through a bounded heap, instead of sorting every match.
+     */
+    public ResultPage filterInventoryPage(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                          int offset, int limit) {
+        offset = Math.max(offset, 0);
+        FilterCache.Key key = new FilterCache.Key("filter", TrigramIndex.normalize(searchText).trim(),
+                minPrice, maxPrice, inStockOnly, Set.of(), Set.of());
+        List<CarModel> cached = filterCache.get(key);
+        if (cached != null) {
+            int from = Math.min(offset, cached.size());
+            int to = (int) Math.min((long) from + Math.max(limit, 0), cached.size());
+            return new ResultPage(new ArrayList<>(cached.subList(from, to)), offset, cached.size());
+        }
+        FilterCache.Key pageKey = new FilterCache.Key("filter-page", TrigramIndex.normalize(searchText).trim(),
+                minPrice, maxPrice, inStockOnly, Set.of(), Set.of(), offset, limit);
+        ResultPage cachedPage = pageCache.get(pageKey);
+        if (cachedPage != null) return new ResultPage(new ArrayList<>(cachedPage.getCars()), offset, cachedPage.getTotalCount());
+
+        List<CarModel> candidates = findCandidates(searchText, minPrice, maxPrice, inStockOnly);
+        List<CarModel> cars = TopK.page(candidates, offset, limit, BRAND_MODEL_ORDER);
+        pageCache.put(pageKey, new ResultPage(new ArrayList<>(cars), offset, candidates.size()), cars.size());
+        return new ResultPage(cars, offset, candidates.size());
+    }
+
+    /**
+     * Keyset page: up to limit cars ordered after (afterBrand, afterModel), typically the
+     * {@link ResultPage#getNextBrand()} / {@link ResultPage#getNextModel()} of the previous page.
+     * Unlike an offset, the cursor stays on the right car when rows are added or removed in between.
+     */
+    public ResultPage filterInventoryAfter(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                           String afterBrand, String afterModel, int limit) {
+        List<CarModel> candidates = findCandidates(searchText, minPrice, maxPrice, inStockOnly);
+        String cursor = SearchKeys.sortKey(afterBrand, afterModel);
+        List<CarModel> after = new ArrayList<>();
+        for (CarModel car : candidates) {
+            if (car.getSortKey().compareTo(cursor) > 0) after.add(car);
+        }
+        int offset = candidates.size() - after.size();
+        return new ResultPage(TopK.smallest(after, limit, BRAND_MODEL_ORDER), offset, candidates.size());
+    }
 
-        return inventory.stream()
-            .filter(car ->
-                (query.isEmpty() || car.getBrand().toLowerCase().contains(query) || car.getModel().toLowerCase().contains(query)) &&
+    /**
+     * The first k matches in brand, model order, selected with a bounded heap.
+     */
+    public List<CarModel> filterInventoryTop(String searchText, double minPrice, double maxPrice, boolean inStockOnly, int k) {
+        return filterInventoryPage(searchText, minPrice, maxPrice, inStockOnly, 0, k).getCars();
+    }
+
+    /**
+     * Hit/miss counters of the filter result caches (plain, faceted and paged combined).
+     */
+    public FilterCache.Stats getFilterCacheStats() {
+        return filterCache.getStats().plus(facetCache.getStats()).plus(pageCache.getStats());
+    }
+
+    // Unsorted cars matching the search text, price band and stock filter
+    private List<CarModel> findCandidates(String searchText, double minPrice, double maxPrice, boolean inStockOnly) {
+        String query = TrigramIndex.normalize(searchText).trim(); // Trim search text
+        Predicate<CarModel> inRangeAndStock = car ->
                 car.getPrice() >= minPrice &&
                 car.getPrice() <= maxPrice &&
-                (!inStockOnly || car.getQuantity() > 0)
-            )
-            .sorted(Comparator.comparing(CarModel::getBrand).thenComparing(CarModel::getModel))
-            .collect(Collectors.toList());
+                (!inStockOnly || car.getQuantity() > 0);
+        Predicate<CarModel> matches = car -> (query.isEmpty() || textIndex.matches(car, query)) && inRangeAndStock.test(car);
+
+        // Read candidates from whichever index the planner expects to be cheapest, or scan
+        int textRows = query.isEmpty() ? -1 : textIndex.estimate(query);
+        int inStockRows = inStockOnly ? facetIndex.inStockCount() : -1;
+        FilterPlanner.Plan plan = FilterPlanner.choose(inventory.size(), priceIndex.count(minPrice, maxPrice), textRows, inStockRows);
+        // Row checks run in parallel blocks on large candidate sets (ParallelScan keeps row order)
+        if (plan.getAccess() == FilterPlanner.Access.TEXT_INDEX) {
+            return ParallelScan.filter(textIndex.search(query), inRangeAndStock);
+        } else if (plan.getAccess() == FilterPlanner.Access.PRICE_RANGE) {
+            return ParallelScan.filter(priceIndex.lowerBound(minPrice), priceIndex.upperBound(maxPrice), priceIndex::carAt, matches);
+        } else if (plan.getAccess() == FilterPlanner.Access.IN_STOCK_BITMAP) {
+            List<CarModel> result = new ArrayList<>();
+            facetIndex.inStockRows().forEach(id -> {
+                CarModel car = facetIndex.carAt(id);
+                if (matches.test(car)) result.add(car);
+            });
+            return result;
+        }
+        return ParallelScan.filter(inventory, matches);
+    }
+
+    /**
+     * Filters like {@link #filterInventory}, additionally restricted to the selected brands and price
+     * buckets (an empty set means no restriction), and counts each facet value for the filter panel.
+     * Stock, brand and price bucket are answered from bitmaps; only the search text and price range
+     * look at individual cars.
+     */
+    public FacetedResult filterInventoryFaceted(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                                Set<String> brands, Set<PriceBucket> priceBuckets) {
+        return filterInventoryFaceted(searchText, minPrice, maxPrice, inStockOnly, brands, priceBuckets, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page [offset, offset + limit) of the faceted result; the facet counts and total still cover every match.
+     */
+    public FacetedResult filterInventoryFaceted(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                                Set<String> brands, Set<PriceBucket> priceBuckets, int offset, int limit) {
+        FilterCache.Key key = new FilterCache.Key("faceted", TrigramIndex.normalize(searchText).trim(),
+                minPrice, maxPrice, inStockOnly, brands, priceBuckets, offset, limit);
+        FacetedResult cached = facetCache.get(key);
+        if (cached != null) return cached;
+
+        boolean unrestricted = searchText.trim().isEmpty() && priceIndex.count(minPrice, maxPrice) == inventory.size();
+        RoaringBitmap base = unrestricted
+                ? facetIndex.allRows()
+                : facetIndex.rowsOf(findCandidates(searchText, minPrice, maxPrice, false));
+        FacetedResult result = facet(base, null, inStockOnly, brands, priceBuckets, offset, limit);
+        facetCache.put(key, result, result.getCars().size());
+        return result;
+    }
+
+    /**
+     * Fuzzy search narrowed by the facet selections; the cars keep their ranking.
+     */
+    public FacetedResult fuzzySearchFaceted(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                            Set<String> brands, Set<PriceBucket> priceBuckets) {
+        return fuzzySearchFaceted(searchText, minPrice, maxPrice, inStockOnly, brands, priceBuckets, 0, Integer.MAX_VALUE);
+    }
+
+    public FacetedResult fuzzySearchFaceted(String searchText, double minPrice, double maxPrice, boolean inStockOnly,
+                                            Set<String> brands, Set<PriceBucket> priceBuckets, int offset, int limit) {
+        // Only the words take part in fuzzy matching, so "toyta,  fortunr" and "Toyta Fortunr" share an entry
+        FilterCache.Key key = new FilterCache.Key("fuzzy:" + FUZZY_MAX_EDITS, String.join(" ", FuzzyIndex.words(searchText)),
+                minPrice, maxPrice, inStockOnly, brands, priceBuckets, offset, limit);
+        FacetedResult cached = facetCache.get(key);
+        if (cached != null) return cached;
+
+        List<CarModel> ranked = fuzzySearch(searchText, minPrice, maxPrice, false);
+        FacetedResult result = facet(facetIndex.rowsOf(ranked), ranked, inStockOnly, brands, priceBuckets, offset, limit);
+        facetCache.put(key, result, result.getCars().size());
+        return result;
+    }
+
+    /**
+     * Cars matching a search query such as {@code brand:BMW price<3e7 qty>=2 model~"X"} (syntax on
+     * {@link InventoryQuery}), in brand, model order. The query is compiled once and its top-level
+     * terms steer the read to the cheapest index, as for {@link #filterInventory}.
+     *
+     * @throws QuerySyntaxException if the text is not a valid query
+     */
+    public List<CarModel> queryInventory(String queryText) {
+        InventoryQuery query = InventoryQuery.parse(queryText);
+        // Quantity conditions change with every sale, and most sales do not invalidate the cache
+        FilterCache.Key key = query.usesQuantity() ? null
+                : new FilterCache.Key("query", query.toString(), 0, 0, false, Set.of(), Set.of());
+        List<CarModel> cached = key != null ? filterCache.get(key) : null;
+        if (cached != null) return new ArrayList<>(cached);
+
+        List<CarModel> result = findQueryMatches(query, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        ParallelScan.sort(result, BRAND_MODEL_ORDER);
+        if (key != null) filterCache.put(key, new ArrayList<>(result), result.size());
+        return result;
+    }
+
+    /**
+     * Query matches within the filter panel's price band, narrowed by its stock and facet selections
+     * like {@link #filterInventoryFaceted}; one page [offset, offset + limit) with counts over every match.
+     *
+     * @throws QuerySyntaxException if the text is not a valid query
+     */
+    public FacetedResult queryInventoryFaceted(String queryText, double minPrice, double maxPrice, boolean inStockOnly,
+                                               Set<String> brands, Set<PriceBucket> priceBuckets, int offset, int limit) {
+        InventoryQuery query = InventoryQuery.parse(queryText);
+        FilterCache.Key key = query.usesQuantity() ? null
+                : new FilterCache.Key("query-faceted", query.toString(), minPrice, maxPrice, inStockOnly, brands, priceBuckets, offset, limit);
+        FacetedResult cached = key != null ? facetCache.get(key) : null;
+        if (cached != null) return cached;
+
+        RoaringBitmap base = facetIndex.rowsOf(findQueryMatches(query, minPrice, maxPrice));
+        FacetedResult result = facet(base, null, inStockOnly, brands, priceBuckets, offset, limit);
+        if (key != null) facetCache.put(key, result, result.getCars().size());
+        return result;
+    }
+
+    // Unsorted cars priced within [minPrice, maxPrice] that match the compiled query
+    private List<CarModel> findQueryMatches(InventoryQuery query, double minPrice, double maxPrice) {
+        if (query.isNeverTrue()) return new ArrayList<>();
+        Predicate<CarModel> compiled = query.getPredicate();
+        Predicate<CarModel> matches = car -> car.getPrice() >= minPrice && car.getPrice() <= maxPrice && compiled.test(car);
+
+        // Every index below returns a superset of the matches, so the compiled predicate has the final say
+        double low = Math.max(minPrice, query.getPriceMin());
+        double high = Math.min(maxPrice, query.getPriceMax());
+        String text = null;
+        int textRows = -1;
+        for (String substring : query.getSubstrings()) {
+            int rows = textIndex.estimate(substring);
+            if (textRows < 0 || rows < textRows) {
+                text = substring;
+                textRows = rows;
+            }
+        }
+        int brandRows = -1;
+        if (query.getBrands() != null) {
+            brandRows = 0;
+            for (String brand : query.getBrands()) brandRows += brandIndex.count(brand);
+        }
+        int inStockRows = query.isInStockOnly() ? facetIndex.inStockCount() : -1;
+        FilterPlanner.Plan plan = FilterPlanner.choose(inventory.size(), priceIndex.count(low, high), textRows, inStockRows, brandRows);
+
+        if (plan.getAccess() == FilterPlanner.Access.TEXT_INDEX) {
+            return ParallelScan.filter(textIndex.search(text), matches);
+        } else if (plan.getAccess() == FilterPlanner.Access.PRICE_RANGE) {
+            return ParallelScan.filter(priceIndex.lowerBound(low), priceIndex.upperBound(high), priceIndex::carAt, matches);
+        } else if (plan.getAccess() == FilterPlanner.Access.BRAND_INDEX) {
+            List<CarModel> candidates = new ArrayList<>(brandRows);
+            for (String brand : query.getBrands()) candidates.addAll(brandIndex.getModels(brand));
+            return ParallelScan.filter(candidates, matches);
+        } else if (plan.getAccess() == FilterPlanner.Access.IN_STOCK_BITMAP) {
+            List<CarModel> result = new ArrayList<>();
+            facetIndex.inStockRows().forEach(id -> {
+                CarModel car = facetIndex.carAt(id);
+                if (matches.test(car)) result.add(car);
+            });
+            return result;
+        }
+        return ParallelScan.filter(inventory, matches);
+    }
+
+    // Combines the facet selections with the base rows and counts every facet value.
+    // A null selection means "no restriction" and is simply left out of the intersection.
+    private FacetedResult facet(RoaringBitmap base, List<CarModel> ranked, boolean inStockOnly,
+                                Set<String> brands, Set<PriceBucket> priceBuckets, int offset, int limit) {
+        offset = Math.max(offset, 0);
+        RoaringBitmap stockSel = inStockOnly ? facetIndex.inStockRows() : null;
+        RoaringBitmap brandSel = brands.isEmpty() ? null : facetIndex.brandRows(brands);
+        RoaringBitmap bucketSel = priceBuckets.isEmpty() ? null : facetIndex.bucketRows(priceBuckets);
+
+        // Counts for one facet ignore that facet's own selection
+        RoaringBitmap forBrands = intersect(intersect(base, stockSel), bucketSel);
+        Map<String, Integer> brandCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, RoaringBitmap> e : facetIndex.brandRows().entrySet()) {
+            int count = RoaringBitmap.andCardinality(forBrands, e.getValue());
+            if (count > 0 || brands.contains(e.getKey())) brandCounts.put(e.getKey(), count);
+        }
+        RoaringBitmap forBuckets = intersect(intersect(base, stockSel), brandSel);
+        Map<PriceBucket, Integer> bucketCounts = new EnumMap<>(PriceBucket.class);
+        for (PriceBucket bucket : PriceBucket.values()) {
+            bucketCounts.put(bucket, RoaringBitmap.andCardinality(forBuckets, facetIndex.bucketRows(bucket)));
+        }
+        RoaringBitmap forStock = intersect(intersect(base, brandSel), bucketSel);
+        int inStockCount = RoaringBitmap.andCardinality(forStock, facetIndex.inStockRows());
+
+        RoaringBitmap selected = intersect(forBrands, brandSel);
+        List<CarModel> matching = new ArrayList<>(selected.cardinality());
+        List<CarModel> cars;
+        if (ranked != null) {
+            for (CarModel car : ranked) {
+                int id = facetIndex.rowOf(car);
+                if (id >= 0 && selected.contains(id)) matching.add(car);
+            }
+            int from = Math.min(offset, matching.size());
+            int to = (int) Math.min((long) from + Math.max(limit, 0), matching.size());
+            cars = new ArrayList<>(matching.subList(from, to));
+        } else {
+            selected.forEach(id -> matching.add(facetIndex.carAt(id)));
+            cars = TopK.page(matching, offset, limit, BRAND_MODEL_ORDER);
+        }
+        // Results may be cached and handed out again, so they are read-only
+        return new FacetedResult(Collections.unmodifiableList(cars), Collections.unmodifiableMap(brandCounts),
+                Collections.unmodifiableMap(bucketCounts), inStockCount, offset, matching.size());
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap rows, RoaringBitmap selection) {
+        return selection == null ? rows : RoaringBitmap.and(rows, selection);
+    }
+
+    /**
+     * Typo-tolerant search: cars whose brand/model words are each within the configured edit
+     * distance of a search word ("Fortunr" finds "Fortuner"), best matches first.
+     */
+    public List<CarModel> fuzzySearch(String searchText, double minPrice, double maxPrice, boolean inStockOnly) {
+        return fuzzySearch(searchText, FUZZY_MAX_EDITS, minPrice, maxPrice, inStockOnly);
+    }
+
+    public List<CarModel> fuzzySearch(String searchText, int maxEdits, double minPrice, double maxPrice, boolean inStockOnly) {
+        if (fuzzyIndex == null) fuzzyIndex = new FuzzyIndex(inventory);
+        List<CarModel> result = new ArrayList<>();
+        for (FuzzyIndex.Match match : fuzzyIndex.search(searchText, maxEdits)) {
+            CarModel car = match.getCar();
+            if (car.getPrice() >= minPrice && car.getPrice() <= maxPrice && (!inStockOnly || car.getQuantity() > 0)) {
+                result.add(car);
+            }
+        }
+        return result;
     }
 
     public static String formatPrice(double price) {
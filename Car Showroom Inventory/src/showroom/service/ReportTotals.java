@@ -0,0 +1,306 @@
+package showroom.service;
+
+import showroom.model.CarModel;
+import showroom.model.NameDictionary;
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+import showroom.persistence.SalesSegment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals behind the Reports screen, updated by {@link InventoryService} on every mutation in
+ * constant time instead of re-streaming the inventory and the sales log each time a report is shown.
+ *
+ * Lifetime revenue and units sold include archived sales segments, like the segment manifest does.
+ * The per-brand sales figures and the best-seller rankings (overall and for the last 7 and 30 days)
+ * cover the sales still in memory, so archiving subtracts them again.
+ *
+ * {@link #compute} rebuilds everything from scratch; the service uses it at load time and to verify
+ * (and if needed repair) the running totals.
+ */
+public final class ReportTotals {
+    // Sliding windows, in days, that keep their own best-seller ranking
+    private static final int[] WINDOW_DAYS = {7, 30};
+
+    /**
+     * Inventory and sales figures for one brand.
+     */
+    public static final class BrandTotals {
+        private int models;
+        private long unitsInStock;
+        private double inventoryValue;
+        private long unitsSold;
+        private double revenue;
+
+        BrandTotals() {
+        }
+
+        BrandTotals(BrandTotals other) {
+            this.models = other.models;
+            this.unitsInStock = other.unitsInStock;
+            this.inventoryValue = other.inventoryValue;
+            this.unitsSold = other.unitsSold;
+            this.revenue = other.revenue;
+        }
+
+        public int getModels() { return models; }
+        public long getUnitsInStock() { return unitsInStock; }
+        public double getInventoryValue() { return inventoryValue; }
+        public long getUnitsSold() { return unitsSold; }
+        public double getRevenue() { return revenue; }
+
+        boolean isEmpty() {
+            return models == 0 && unitsSold == 0;
+        }
+
+        @Override
+        public String toString() {
+            return models + " models, " + unitsInStock + " in stock worth " + inventoryValue
+                    + ", " + unitsSold + " sold for " + revenue;
+        }
+    }
+
+    private double inventoryValue;
+    private double revenue;
+    private long unitsSold;
+    private final Map<String, BrandTotals> byBrand = new TreeMap<>();
+    // Units sold per model (pair id) among the loaded sales, in rank order
+    private final SalesRanking models = new SalesRanking();
+    private final SalesWindow[] windows = new SalesWindow[WINDOW_DAYS.length];
+    // Hour / day / month / year revenue per brand and model, for trend reports
+    private SalesRollup rollup = new SalesRollup();
+
+    ReportTotals() {
+        for (int i = 0; i < windows.length; i++) windows[i] = new SalesWindow(WINDOW_DAYS[i]);
+    }
+
+    /**
+     * Totals recomputed from the full inventory and sales log; segments (when the backend keeps
+     * them) supply lifetime revenue and units sold including archived sales.
+     */
+    static ReportTotals compute(List<CarModel> inventory, List<SaleModel> salesLog, List<SalesSegment> segments) {
+        ReportTotals totals = new ReportTotals();
+        for (CarModel car : inventory) {
+            totals.carAdded(car);
+        }
+        // Tally units and revenue per (brand, model) pair straight from the columns, then fold the
+        // pairs into brands and the ranking once each
+        SalesColumns sales = SalesColumns.of(salesLog);
+        long[] pairUnits = new long[NameDictionary.size()];
+        double[] pairRevenue = new double[pairUnits.length];
+        for (int i = 0; i < sales.size(); i++) {
+            int pair = sales.getPairId(i);
+            double price = sales.getSalePrice(i);
+            pairUnits[pair]++;
+            pairRevenue[pair] += price;
+            totals.revenue += price;
+        }
+        totals.unitsSold = sales.size();
+        for (int pair = 0; pair < pairUnits.length; pair++) {
+            if (pairUnits[pair] == 0) continue; // Only archived sales left
+            BrandTotals brand = totals.byBrand.computeIfAbsent(NameDictionary.brand(pair), k -> new BrandTotals());
+            brand.unitsSold += pairUnits[pair];
+            brand.revenue += pairRevenue[pair];
+            totals.models.add(pair, pairUnits[pair]);
+        }
+        totals.rollup = SalesRollup.build(sales);
+
+        // The log is in recording order, so only its tail can fall in a window
+        int from = sales.size();
+        if (from > 0) {
+            long first = epochDay(sales, from - 1) - (maxWindowDays() - 1L);
+            while (from > 0 && epochDay(sales, from - 1) >= first) from--;
+        }
+        for (int i = from; i < sales.size(); i++) {
+            LocalDate day = LocalDate.ofEpochDay(epochDay(sales, i));
+            for (SalesWindow window : totals.windows) window.add(day, sales.getPairId(i));
+        }
+        if (!segments.isEmpty()) {
+            totals.revenue = 0;
+            totals.unitsSold = 0;
+            for (SalesSegment segment : segments) {
+                totals.revenue += segment.getRevenue();
+                totals.unitsSold += segment.getCount();
+            }
+        }
+        return totals;
+    }
+
+    private static long epochDay(SalesColumns sales, int index) {
+        return Math.floorDiv(sales.getEpochSecond(index), 86_400);
+    }
+
+    // --- Updates (one call per mutation, each O(1)) ---
+
+    void carAdded(CarModel car) {
+        BrandTotals brand = byBrand.computeIfAbsent(car.getBrand(), k -> new BrandTotals());
+        brand.models++;
+        brand.unitsInStock += car.getQuantity();
+        double value = car.getPrice() * car.getQuantity();
+        brand.inventoryValue += value;
+        inventoryValue += value;
+    }
+
+    /**
+     * Takes out a car as it was before an edit or removal (its fields may already hold the new values).
+     */
+    void carRemoved(String brandName, double price, int quantity) {
+        BrandTotals brand = byBrand.get(brandName);
+        double value = price * quantity;
+        inventoryValue -= value;
+        if (brand == null) return;
+        brand.models--;
+        brand.unitsInStock -= quantity;
+        brand.inventoryValue -= value;
+        if (brand.isEmpty()) byBrand.remove(brandName);
+    }
+
+    /**
+     * One unit of the car left the stock through a sale.
+     */
+    void unitSold(CarModel car) {
+        inventoryValue -= car.getPrice();
+        BrandTotals brand = byBrand.get(car.getBrand());
+        if (brand != null) {
+            brand.unitsInStock--;
+            brand.inventoryValue -= car.getPrice();
+        }
+    }
+
+    void saleRecorded(SaleModel sale) {
+        countSale(sale);
+        models.add(sale.getPairId(), 1);
+        LocalDate day = sale.getTimestamp().toLocalDate();
+        for (SalesWindow window : windows) window.add(day, sale.getPairId());
+        rollup.add(sale);
+    }
+
+    // Revenue, units and brand figures of one sale
+    private void countSale(SaleModel sale) {
+        revenue += sale.getSalePrice();
+        unitsSold++;
+        BrandTotals brand = byBrand.computeIfAbsent(sale.getBrand(), k -> new BrandTotals());
+        brand.unitsSold++;
+        brand.revenue += sale.getSalePrice();
+    }
+
+    /**
+     * Sales dropped from memory by archiving. Lifetime revenue and units sold keep them.
+     */
+    void salesArchived(List<SaleModel> sales) {
+        for (SaleModel sale : sales) {
+            BrandTotals brand = byBrand.get(sale.getBrand());
+            if (brand != null) {
+                brand.unitsSold--;
+                brand.revenue -= sale.getSalePrice();
+                if (brand.isEmpty()) byBrand.remove(sale.getBrand());
+            }
+            models.add(sale.getPairId(), -1);
+            LocalDate day = sale.getTimestamp().toLocalDate();
+            for (SalesWindow window : windows) window.remove(day, sale.getPairId());
+            rollup.remove(sale);
+        }
+    }
+
+    // --- Reads ---
+
+    public double getInventoryValue() { return inventoryValue; }
+    public double getRevenue() { return revenue; }
+    public long getUnitsSold() { return unitsSold; }
+
+    /**
+     * The most sold model among the loaded sales (ties go to the alphabetically first), or null when there are none.
+     */
+    public SalesRanking.Entry getBestModel() {
+        return models.first();
+    }
+
+    /**
+     * The n best-selling models among the loaded sales, best first.
+     */
+    public List<SalesRanking.Entry> getTopModels(int n) {
+        return models.top(n);
+    }
+
+    /**
+     * The n best-selling models over the last days (7 or 30) up to and including today.
+     */
+    public List<SalesRanking.Entry> getTopModels(int n, int days, LocalDate today) {
+        return window(days).top(n, today);
+    }
+
+    private static int maxWindowDays() {
+        return Arrays.stream(WINDOW_DAYS).max().orElse(1);
+    }
+
+    private SalesWindow window(int days) {
+        for (SalesWindow window : windows) {
+            if (window.getDays() == days) return window;
+        }
+        throw new IllegalArgumentException("No sales window of " + days + " days is kept (available: " + Arrays.toString(WINDOW_DAYS) + ")");
+    }
+
+    /**
+     * Revenue rollups of the loaded sales (archived sales are not included).
+     */
+    public SalesRollup getRollup() { return rollup; }
+
+    /**
+     * Copy of the per-brand figures, in brand order.
+     */
+    public Map<String, BrandTotals> getBrandTotals() {
+        Map<String, BrandTotals> copy = new TreeMap<>();
+        byBrand.forEach((brand, totals) -> copy.put(brand, new BrandTotals(totals)));
+        return copy;
+    }
+
+    // --- Verification ---
+
+    /**
+     * Differences between these running totals and the recomputed ones, empty when they agree.
+     * Money sums are compared with a small relative tolerance: adding and subtracting the same
+     * amounts in a different order may round differently in the last digits.
+     */
+    List<String> differences(ReportTotals expected) {
+        List<String> diffs = new ArrayList<>();
+        if (!close(inventoryValue, expected.inventoryValue)) diffs.add("inventory value " + inventoryValue + " != " + expected.inventoryValue);
+        if (!close(revenue, expected.revenue)) diffs.add("revenue " + revenue + " != " + expected.revenue);
+        if (unitsSold != expected.unitsSold) diffs.add("units sold " + unitsSold + " != " + expected.unitsSold);
+        if (!byBrand.keySet().equals(expected.byBrand.keySet())) {
+            diffs.add("brands " + byBrand.keySet() + " != " + expected.byBrand.keySet());
+        } else {
+            for (Map.Entry<String, BrandTotals> e : byBrand.entrySet()) {
+                BrandTotals a = e.getValue();
+                BrandTotals b = expected.byBrand.get(e.getKey());
+                if (a.models != b.models || a.unitsInStock != b.unitsInStock || a.unitsSold != b.unitsSold
+                        || !close(a.inventoryValue, b.inventoryValue) || !close(a.revenue, b.revenue)) {
+                    diffs.add("brand " + e.getKey() + ": " + a + " != " + b);
+                }
+            }
+        }
+        if (!models.entries().equals(expected.models.entries())) {
+            diffs.add("model ranking, best " + models.first() + " != " + expected.models.first());
+        }
+        diffs.addAll(rollup.differences(expected.rollup));
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < windows.length; i++) {
+            windows[i].advanceTo(today);
+            expected.windows[i].advanceTo(today);
+            if (!windows[i].getRanking().entries().equals(expected.windows[i].getRanking().entries())) {
+                diffs.add("last " + windows[i].getDays() + " days ranking, best " + windows[i].getRanking().first()
+                        + " != " + expected.windows[i].getRanking().first());
+            }
+        }
+        return diffs;
+    }
+
+    static boolean close(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.max(Math.abs(a), Math.abs(b))) + 0.01;
+    }
+}
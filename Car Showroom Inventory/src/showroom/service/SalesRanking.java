@@ -0,0 +1,103 @@
+package showroom.service;
+
+import showroom.model.NameDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Units sold per model, kept in rank order as they change: each sale moves one entry in a sorted
+ * set (O(log models)), so the top N sellers are read off the front of the set without counting
+ * or sorting the sales again. Counts are exact; the number of entries is the number of distinct
+ * models sold, which for a showroom is small enough that an approximate sketch is not needed.
+ * Models are addressed by their {@link NameDictionary} pair id, so counting a sale builds no string.
+ */
+public final class SalesRanking {
+
+    /**
+     * One model ("Brand Model") and its units sold.
+     */
+    public static final class Entry {
+        private final String name;
+        private final long units;
+
+        Entry(String name, long units) {
+            this.name = name;
+            this.units = units;
+        }
+
+        public String getName() { return name; }
+        public long getUnits() { return units; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) return false;
+            Entry other = (Entry) o;
+            return units == other.units && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() * 31 + Long.hashCode(units);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + units + " units)";
+        }
+    }
+
+    // Most units first; ties go to the alphabetically first model
+    private static final Comparator<Entry> RANK_ORDER = Comparator.comparingLong(Entry::getUnits).reversed()
+            .thenComparing(Entry::getName);
+
+    private Entry[] byPair = new Entry[64]; // Current entry per pair id, null when none sold
+    private final TreeSet<Entry> ranked = new TreeSet<>(RANK_ORDER);
+
+    /**
+     * Adds delta units (negative to take sales back out) to the count of the model with this pair id.
+     */
+    void add(int pairId, long delta) {
+        if (pairId >= byPair.length) byPair = Arrays.copyOf(byPair, Math.max(pairId + 1, byPair.length * 2));
+        Entry old = byPair[pairId];
+        long units = (old != null ? old.units : 0) + delta;
+        if (old != null) ranked.remove(old);
+        if (units > 0) {
+            Entry entry = new Entry(NameDictionary.name(pairId), units);
+            byPair[pairId] = entry;
+            ranked.add(entry);
+        } else {
+            byPair[pairId] = null;
+        }
+    }
+
+    /**
+     * The n best sellers, best first.
+     */
+    public List<Entry> top(int n) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(n, ranked.size())));
+        Iterator<Entry> it = ranked.iterator();
+        while (result.size() < n && it.hasNext()) result.add(it.next());
+        return result;
+    }
+
+    /**
+     * The best seller, or null when nothing was sold.
+     */
+    public Entry first() {
+        return ranked.isEmpty() ? null : ranked.first();
+    }
+
+    public int size() { return ranked.size(); }
+
+    /**
+     * Every entry, best first.
+     */
+    List<Entry> entries() {
+        return new ArrayList<>(ranked);
+    }
+}
@@ -0,0 +1,289 @@
+package showroom.service;
+
+import showroom.model.FastTimestamp;
+import showroom.model.NameDictionary;
+import showroom.model.SaleModel;
+import showroom.model.SalesColumns;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Revenue and units per hour, day, month and year, each broken down by brand and by model
+ * ("Brand Model"). Every sale adds to one bucket per level, so recording it costs a few map
+ * updates; at load time the hour buckets are built from the log and each coarser level is summed
+ * from the one below instead of from the sales again.
+ *
+ * A range query is answered from the fewest whole buckets that tile it: March is one month
+ * bucket, March 3rd 10:00 to April 2nd is 14 hours, 28 days and one more day, so the cost
+ * depends on the shape of the range rather than on how many sales it contains.
+ * Ranges are whole hours: the start is rounded down and the end up to the hour.
+ */
+public final class SalesRollup {
+
+    public enum Granularity {
+        HOUR, DAY, MONTH, YEAR;
+
+        /**
+         * Start of the bucket containing the given time.
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            switch (this) {
+                case HOUR: return time.truncatedTo(ChronoUnit.HOURS);
+                case DAY: return time.truncatedTo(ChronoUnit.DAYS);
+                case MONTH: return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+                default: return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            }
+        }
+
+        /**
+         * Start of the bucket after the one starting at the given time.
+         */
+        public LocalDateTime next(LocalDateTime start) {
+            switch (this) {
+                case HOUR: return start.plusHours(1);
+                case DAY: return start.plusDays(1);
+                case MONTH: return start.plusMonths(1);
+                default: return start.plusYears(1);
+            }
+        }
+    }
+
+    /**
+     * Revenue and units sold.
+     */
+    public static final class Totals {
+        private double revenue;
+        private long units;
+
+        Totals() {
+        }
+
+        Totals(Totals other) {
+            this.revenue = other.revenue;
+            this.units = other.units;
+        }
+
+        public double getRevenue() { return revenue; }
+        public long getUnits() { return units; }
+
+        void add(double amount, long count) {
+            revenue += amount;
+            units += count;
+        }
+
+        void add(Totals other) {
+            add(other.revenue, other.units);
+        }
+
+        @Override
+        public String toString() {
+            return units + " units, " + revenue;
+        }
+    }
+
+    // One bucket: overall, per brand and per model (pair id); names are only built for query results
+    private static final class Bucket {
+        final Totals total = new Totals();
+        final Map<String, Totals> byBrand = new HashMap<>();
+        final Map<Integer, Totals> byModel = new HashMap<>();
+
+        void add(int pairId, double amount, long count) {
+            total.add(amount, count);
+            byBrand.computeIfAbsent(NameDictionary.brand(pairId), k -> new Totals()).add(amount, count);
+            byModel.computeIfAbsent(pairId, k -> new Totals()).add(amount, count);
+        }
+
+        // A sale taken back out; entries that drop to zero units are removed
+        void subtract(int pairId, double amount) {
+            total.add(-amount, -1);
+            subtract(byBrand, NameDictionary.brand(pairId), amount);
+            subtract(byModel, pairId, amount);
+        }
+
+        private static <K> void subtract(Map<K, Totals> map, K key, double amount) {
+            Totals totals = map.get(key);
+            if (totals == null) return;
+            totals.add(-amount, -1);
+            if (totals.units <= 0) map.remove(key);
+        }
+
+        void addAll(Bucket other) {
+            total.add(other.total);
+            other.byBrand.forEach((k, t) -> byBrand.computeIfAbsent(k, x -> new Totals()).add(t));
+            other.byModel.forEach((k, t) -> byModel.computeIfAbsent(k, x -> new Totals()).add(t));
+        }
+    }
+
+    private final Map<Granularity, TreeMap<LocalDateTime, Bucket>> levels = new EnumMap<>(Granularity.class);
+
+    SalesRollup() {
+        for (Granularity g : Granularity.values()) levels.put(g, new TreeMap<>());
+    }
+
+    /**
+     * Rollups of a whole sales log: hours from the sales, then days from hours, months from days
+     * and years from months.
+     */
+    static SalesRollup build(List<SaleModel> salesLog) {
+        SalesRollup rollup = new SalesRollup();
+        SalesColumns sales = SalesColumns.of(salesLog);
+        // Hours as local epoch hours while counting; turned into times once per bucket
+        Map<Long, Bucket> hours = new HashMap<>();
+        for (int i = 0; i < sales.size(); i++) {
+            hours.computeIfAbsent(Math.floorDiv(sales.getEpochSecond(i), 3600), k -> new Bucket())
+                    .add(sales.getPairId(i), sales.getSalePrice(i), 1);
+        }
+        TreeMap<LocalDateTime, Bucket> hourLevel = rollup.levels.get(Granularity.HOUR);
+        hours.forEach((hour, bucket) -> hourLevel.put(FastTimestamp.toLocalDateTime(hour * 3600), bucket));
+        Granularity[] order = Granularity.values();
+        for (int i = 1; i < order.length; i++) {
+            TreeMap<LocalDateTime, Bucket> coarser = rollup.levels.get(order[i]);
+            for (Map.Entry<LocalDateTime, Bucket> e : rollup.levels.get(order[i - 1]).entrySet()) {
+                coarser.computeIfAbsent(order[i].truncate(e.getKey()), k -> new Bucket()).addAll(e.getValue());
+            }
+        }
+        return rollup;
+    }
+
+    void add(SaleModel sale) {
+        for (Granularity g : Granularity.values()) {
+            levels.get(g).computeIfAbsent(g.truncate(sale.getTimestamp()), k -> new Bucket())
+                    .add(sale.getPairId(), sale.getSalePrice(), 1);
+        }
+    }
+
+    /**
+     * Takes a sale back out (when it is archived); buckets left without sales are dropped.
+     */
+    void remove(SaleModel sale) {
+        for (Granularity g : Granularity.values()) {
+            TreeMap<LocalDateTime, Bucket> level = levels.get(g);
+            LocalDateTime start = g.truncate(sale.getTimestamp());
+            Bucket bucket = level.get(start);
+            if (bucket == null) continue;
+            bucket.subtract(sale.getPairId(), sale.getSalePrice());
+            if (bucket.total.units <= 0) level.remove(start);
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Totals of every non-empty bucket of the given size starting in [from, to), in time order.
+     */
+    public SortedMap<LocalDateTime, Totals> series(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        SortedMap<LocalDateTime, Totals> result = new TreeMap<>();
+        if (!from.isBefore(to)) return result;
+        for (Map.Entry<LocalDateTime, Bucket> e : levels.get(granularity).subMap(from, to).entrySet()) {
+            result.put(e.getKey(), new Totals(e.getValue().total));
+        }
+        return result;
+    }
+
+    /**
+     * Revenue and units of the sales in [from, to), rounded out to whole hours.
+     */
+    public Totals total(LocalDateTime from, LocalDateTime to) {
+        Totals result = new Totals();
+        for (Bucket bucket : cover(from, to)) result.add(bucket.total);
+        return result;
+    }
+
+    /**
+     * Revenue and units per brand for the sales in [from, to), rounded out to whole hours; in brand order.
+     */
+    public Map<String, Totals> byBrand(LocalDateTime from, LocalDateTime to) {
+        Map<String, Totals> result = new TreeMap<>();
+        for (Bucket bucket : cover(from, to)) {
+            bucket.byBrand.forEach((k, t) -> result.computeIfAbsent(k, x -> new Totals()).add(t));
+        }
+        return result;
+    }
+
+    /**
+     * Revenue and units per model ("Brand Model") for the sales in [from, to), rounded out to whole hours.
+     */
+    public Map<String, Totals> byModel(LocalDateTime from, LocalDateTime to) {
+        Map<Integer, Totals> byPair = new HashMap<>();
+        for (Bucket bucket : cover(from, to)) {
+            bucket.byModel.forEach((k, t) -> byPair.computeIfAbsent(k, x -> new Totals()).add(t));
+        }
+        Map<String, Totals> result = new TreeMap<>();
+        byPair.forEach((pairId, t) -> result.put(NameDictionary.name(pairId), t));
+        return result;
+    }
+
+    // The non-empty buckets that exactly tile [from, to): at each step the largest bucket that
+    // starts there and still ends inside the range
+    private List<Bucket> cover(LocalDateTime from, LocalDateTime to) {
+        List<Bucket> buckets = new ArrayList<>();
+        LocalDateTime t = Granularity.HOUR.truncate(from);
+        LocalDateTime end = Granularity.HOUR.truncate(to);
+        if (end.isBefore(to)) end = end.plusHours(1);
+        // Nothing was sold before the first or after the last hour, so a range reaching past them can
+        // be cut back to the year they fall in, which keeps the walk short and lets it use whole years
+        TreeMap<LocalDateTime, Bucket> hours = levels.get(Granularity.HOUR);
+        if (hours.isEmpty()) return buckets;
+        if (t.isBefore(hours.firstKey())) t = Granularity.YEAR.truncate(hours.firstKey());
+        LocalDateTime lastYearEnd = Granularity.YEAR.next(Granularity.YEAR.truncate(hours.lastKey()));
+        if (end.isAfter(lastYearEnd)) end = lastYearEnd;
+
+        Granularity[] largestFirst = {Granularity.YEAR, Granularity.MONTH, Granularity.DAY, Granularity.HOUR};
+        while (t.isBefore(end)) {
+            for (Granularity g : largestFirst) {
+                LocalDateTime next = g.next(t);
+                if (g != Granularity.HOUR && (!g.truncate(t).equals(t) || next.isAfter(end))) continue;
+                Bucket bucket = levels.get(g).get(t);
+                if (bucket != null) buckets.add(bucket);
+                t = next;
+                break;
+            }
+        }
+        return buckets;
+    }
+
+    // --- Verification ---
+
+    /**
+     * Buckets whose totals differ from the other rollup's (the same tolerance as the report totals).
+     */
+    List<String> differences(SalesRollup expected) {
+        List<String> diffs = new ArrayList<>();
+        for (Granularity g : Granularity.values()) {
+            TreeMap<LocalDateTime, Bucket> mine = levels.get(g);
+            TreeMap<LocalDateTime, Bucket> theirs = expected.levels.get(g);
+            if (!mine.keySet().equals(theirs.keySet())) {
+                diffs.add(g + " buckets " + mine.size() + " != " + theirs.size());
+                continue;
+            }
+            for (Map.Entry<LocalDateTime, Bucket> e : mine.entrySet()) {
+                Bucket other = theirs.get(e.getKey());
+                if (!same(e.getValue().total, other.total) || !same(e.getValue().byBrand, other.byBrand)
+                        || !same(e.getValue().byModel, other.byModel)) {
+                    diffs.add(g + " " + e.getKey() + ": " + e.getValue().total + " != " + other.total);
+                }
+            }
+        }
+        return diffs;
+    }
+
+    private static <K> boolean same(Map<K, Totals> a, Map<K, Totals> b) {
+        if (!a.keySet().equals(b.keySet())) return false;
+        for (Map.Entry<K, Totals> e : a.entrySet()) {
+            if (!same(e.getValue(), b.get(e.getKey()))) return false;
+        }
+        return true;
+    }
+
+    private static boolean same(Totals a, Totals b) {
+        return a.units == b.units && ReportTotals.close(a.revenue, b.revenue);
+    }
+}
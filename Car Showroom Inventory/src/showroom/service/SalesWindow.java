@@ -0,0 +1,70 @@
+package showroom.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Units sold per model over the last N days, ending today. Sales are counted into one bucket per
+ * day and into a {@link SalesRanking} for the whole window; when a day leaves the window its
+ * bucket is subtracted from the ranking again. Each sale costs O(log models), each expired day
+ * costs the number of models sold on it, and no sale is ever read twice. Models are pair ids.
+ */
+final class SalesWindow {
+    private final int days;
+    private final TreeMap<LocalDate, Map<Integer, Long>> byDay = new TreeMap<>();
+    private final SalesRanking ranking = new SalesRanking();
+    private LocalDate latest; // Newest day seen; the window ends here
+
+    SalesWindow(int days) {
+        this.days = days;
+    }
+
+    int getDays() { return days; }
+
+    private LocalDate start() {
+        return latest.minusDays(days - 1L);
+    }
+
+    /**
+     * Counts one sale made on the given day; sales already outside the window are ignored.
+     */
+    void add(LocalDate day, int pairId) {
+        advanceTo(day);
+        if (day.isBefore(start())) return;
+        byDay.computeIfAbsent(day, d -> new HashMap<>()).merge(pairId, 1L, Long::sum);
+        ranking.add(pairId, 1);
+    }
+
+    /**
+     * Takes back one sale counted by {@link #add} (when sales are archived), if it is still in the window.
+     */
+    void remove(LocalDate day, int pairId) {
+        Map<Integer, Long> bucket = byDay.get(day);
+        if (bucket == null || !bucket.containsKey(pairId)) return;
+        bucket.computeIfPresent(pairId, (k, n) -> n == 1 ? null : n - 1);
+        if (bucket.isEmpty()) byDay.remove(day);
+        ranking.add(pairId, -1);
+    }
+
+    /**
+     * Moves the end of the window forward to the given day, dropping the days that fall out.
+     */
+    void advanceTo(LocalDate day) {
+        if (latest != null && !day.isAfter(latest)) return;
+        latest = day;
+        LocalDate start = start();
+        while (!byDay.isEmpty() && byDay.firstKey().isBefore(start)) {
+            byDay.pollFirstEntry().getValue().forEach((pairId, n) -> ranking.add(pairId, -n));
+        }
+    }
+
+    List<SalesRanking.Entry> top(int n, LocalDate today) {
+        advanceTo(today);
+        return ranking.top(n);
+    }
+
+    SalesRanking getRanking() { return ranking; }
+}